@@ -7,25 +7,42 @@
 
 import java.io.*;
 import java.lang.*;
-import mpi.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /*
     * The Main Driver Class for Ant Colony Optimization of Travelling Salesman Problem
 */
 public class Acotsp {
     public static int debug = 0;        // * Debug Flag
-    private static double GRAPH[][];    // * Distance Matrix
+    static Matrix GRAPH;                // * Distance Matrix, null when the Distances come from Coordinates
+    static Coordinates COORDS;          // * City Coordinates of a TSPLIB input, null for an adjacency list input
+    static Matrix HEURISTIC;            // * Heuristic Matrix (1/distance)^beta
+    static Matrix PHEROMONES;           // * Pheromone Matrix
+    static Matrix CHOICE;               // * Choice Matrix pheromone^alpha * (1/distance)^beta
+    static int NEIGHBORS[][];           // * Candidate Lists of the Nearest Neighbors of every City
     public static int ncities;          // * # of Cities
     static Acotsp driver;               // * Object of the Driver Class
-    private static int nprocs = 1;      // * # of processes/ Computing Nodes
+    static int nprocs = 1;              // * # of processes/ Computing Nodes
+    static Comm comm;                   // * Communication backend, MPI processes or in-process Threads
     public static City cities[];        // * Array of City Objects
     public static Ant ants[];           // * Array of Ant Objects
     public static int rank;             // * MPI Rank
+    public static long seed;            // * Master seed of the random number streams of all the Ants
+    static ProbabilityKernel kernel = ProbabilityKernel.SCALAR;  // * Probability kernel of the dense double Rows, the SIMD one is checked at startup
+    private static ForkJoinPool workers;// * Pool of the Threads working for this MPI Node, null when single threaded
+    static double pherScale = 1.0;      // * Global factor of the lazily evaporated Pheromones, true value = stored * pherScale
+    static double missingEdge;          // * Length a Tour pays for a missing Edge of an adjacency list, more than any whole Tour without one
+    static PheromoneUpdate update;      // * Pheromone update rule of the current Simulation
+    static Matrix shareBuffer;          // * Receive buffer for combining the Pheromone Matrices of all the Nodes
+    static int shareTrips[];            // * Receive buffer for the Tours exchanged between the Nodes
+    static double shareDists[];         // * Receive buffer for the Distances of the exchanged Tours
 
     /*
         * Main Function that acts like the driver class for the program
     */
-    public static void main(String args[]) throws MPIException {
+    public static void main(String args[]) throws InterruptedException {
         String filename;            // * Name of the Input File
         long startTime = 0L;        // * Start Time of the program
         long endTime = 0L;          // * Endtime of the Program
@@ -36,150 +53,259 @@ public class Acotsp {
         // * Variables to be used for Message Transfer using Java MPI
         double bestTripDist[];      // * Object to hold the Shortest Trip Distance of a single Ant
         int bestTrip[];             // * Onject to store the Path taken by a single Ant for the Shortest Distance
-        double allBestDist[];       // * Collection of the Shortest Trip Distance traversed from all the MPI Nodes
-        int allBestTrip[][];        // * Collection of the Shortest Path taken by a single Ant from all the MPI Nodes
+        int globalBestTrip[] = null;// * Shortest Path taken by any Ant over all the MPI Nodes
+        double targetTime[];        // * Time in ms at which a Node first reached Parameters.targetDist
 
         // * Checking & Storing the Arguments passed to the program
         if (args.length < 3) {
-            System.err.println("Usage :: acotsp <filename> <ncities> <#Iterations> [<Debug>]");
+            System.err.println("Usage :: acotsp <filename> <ncities> <#Iterations, 0 for Parameters.iterationsMax> [<Debug>]");
+            System.err.println("         acotsp -batch <manifest> <results file>");
             System.exit(-1);
         }
+        boolean batch = args[0].equals("-batch");   // * Many instances from a Manifest, see Batch
         filename = args[0];
-        ncities = Integer.parseInt(args[1]);
-        niter = Integer.parseInt(args[2]);
-        if (args.length == 3) {
+        if (!batch) {
+            ncities = Integer.parseInt(args[1]);
+            niter = Integer.parseInt(args[2]);
+            if (niter <= 0)
+                niter = Parameters.iterationsMax;
+        }
+        if (args.length > 3) {
             debug = Integer.parseInt(args[3]);
         }
+        if (Incremental.active() && (batch || Parameters.clusterSize > 0 || Checkpoint.enabled())) {
+            System.err.println("Parameters.deltaFile cannot be combined with batch mode, decomposition or Checkpoints");
+            System.exit(-1);
+        }
+
+        // * Running the ranks as Threads of this JVM, each one comes back here with its own copy of the statics
+        if (Parameters.threadRanks > 0 && ThreadComm.current() == null) {
+            ThreadComm.launch(Parameters.threadRanks, Acotsp.class.getName(), args);
+            return;
+        }
+        comm = (Parameters.threadRanks > 0) ? ThreadComm.current() : Comm.mpi(args);  // * Starting Java MPI
+        rank = comm.rank();                 // * Fetching the Rank of the current MPI Computing Node
+        nprocs = comm.size();               // * Getting the Number of Processes/MPI Computing Nodes
+
+        // * Sharing the master seed of the root, every Ant derives its own stream from it
+        long seeds[] = { (Parameters.seed != 0) ? Parameters.seed : System.nanoTime() };
+        comm.bcast(seeds, 0, 1, root);
+        seed = seeds[0];
+
+        // * Starting the worker Threads that share the Ants of this Node
+        // * In-process ranks split the cores of the machine between them
+        int cores = Runtime.getRuntime().availableProcessors();
+        int nthreads = (Parameters.nthreads > 0) ? Parameters.nthreads
+                     : Math.max(1, (Parameters.threadRanks > 0) ? cores / nprocs : cores);
+        if (nthreads > 1)
+            workers = new ForkJoinPool(nthreads);
+
+        // * Solving every instance of the Manifest on one Node each, as the Nodes become free
+        if (batch) {
+            startTime = System.currentTimeMillis();
+            Batch.run(args[1], args[2], root);
+            if(rank == root)
+                System.out.printf("Elapsed Time :: %d ms\n", (System.currentTimeMillis() - startTime));
+            comm.finish();
+            return;
+        }
 
         driver = new Acotsp();              // * Initializing the Driver class Object
+        if (isTsplib(filename)) {
+            COORDS = new Coordinates(ncities, Coordinates.EUC_2D);
+            if (Parameters.ncandidates <= 0) {
+                System.err.println("Coordinate input needs Candidate Lists, set Parameters.ncandidates > 0");
+                System.exit(-1);
+            }
+        }
+        else if (Parameters.clusterSize > 0) {
+            System.err.println("Decomposition needs Coordinate input, use a TSPLIB file or set Parameters.clusterSize = 0");
+            System.exit(-1);
+        }
+        else
+            GRAPH = new Matrix(ncities, Parameters.singlePrecision, Parameters.packedGraph);
+        if(rank == root) {
+            try {
+                driver.readFile(filename);  // * Function to read the Input file & Initialize the Disatnce Matrix
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.exit(-1);
+            }
+
+            if (debug == 1)
+                driver.printGraph(0);       // * Printing the Initialized Distance Matrix
+
+            System.out.println("Input File :: " + filename + "\n# Processes :: " + nprocs + "\n# Cities :: "
+                                + ncities + "\n# of Iterations :: " + niter + "\nSeed :: " + seed + "\n");
+
+            // * Getting the Start Time
+            startTime = System.currentTimeMillis();
+        }
+
         try {
-            driver.readFile(filename);      // * Function to read the Input file & Initialize the Disatnce Matrix
+            Metrics.open(rank, root);       // * Trace files of the Metrics, when enabled
         } catch (IOException e) {
             e.printStackTrace();
             System.exit(-1);
         }
 
-        if (debug == 1)
-            driver.printGraph(0);           // * Printing the Initialized Distance Matrix
+        if (GRAPH != null) {
+            // * Broadcasting the Distance Matrix to all the MPI Nodes from the Root Node as a single buffer
+            // * It is never written again, so in-process ranks all read the root's copy
+            GRAPH.adopt(comm.share(GRAPH.buffer(), root));
+        }
+        else {
+            // * Broadcasting only the Coordinates, every Node computes the Distances it needs
+            int type[] = { COORDS.type };
+            comm.bcast(type, 0, 1, root);
+            COORDS.type = type[0];
+            COORDS.x = (double[]) comm.share(COORDS.x, root);
+            COORDS.y = (double[]) comm.share(COORDS.y, root);
+        }
 
-        MPI.Init(args);                     // * Starting Java MPI
-        rank = MPI.COMM_WORLD.Rank();       // * Fetching the Rank of the current MPI Computing Node
-        nprocs = MPI.COMM_WORLD.Size();     // * Getting the Number of Processes/MPI Computing Nodes
+        // * Solving a large instance as clusters spread over the Nodes instead of as a whole
+        if (Parameters.clusterSize > 0) {
+            Decomposition.run(niter, root);
+            if(rank == root)
+                System.out.printf("Elapsed Time :: %d ms\n", (System.currentTimeMillis() - startTime));
+            comm.finish();
+            return;
+        }
 
-        if(rank == root){
-            System.out.println("Input File :: " + filename + "\n# Processes :: " + nprocs + "\n# Cities :: "
-                                + ncities + "\n# of Iterations :: " + niter + "\n");
+        buildMatrices();                    // * Precomputing the Candidate Lists and the Heuristic Values
 
-            // * Getting the Start Time
-            startTime = System.currentTimeMillis();
+        // * Selecting the SIMD Probability kernel when asked for, it only applies to a dense double Choice Matrix
+        if (Parameters.vectorKernel && !CHOICE.single && !CHOICE.packed && !CHOICE.sparse)
+            kernel = loadVectorKernel();
 
-            // * Broadcasting the Distance Matrix to all the MPI Nodes from the Root Node
-            MPI.COMM_WORLD.Bcast(GRAPH, 0, ncities*ncities, MPI.DOUBLE, root);
+        try {
+            Incremental.open(rank, root);   // * The stream of changes of an incremental run, when enabled
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(-1);
         }
 
-        // * Start of Actual TSP Problem
-        for(int sim = 1; sim <= Parameters.maxSims; sim++) {
+        // * Resuming from the last Checkpoint all the Nodes hold, when asked for
+        int firstSim = 1;
+        if(Parameters.resume && Checkpoint.enabled() && Checkpoint.restore()) {
+            firstSim = Checkpoint.sim;
             if(rank == root)
-                System.out.println("Simulation #" + sim);
+                System.out.println("Resuming from Checkpoint " + Checkpoint.generation + " :: Simulation #" + firstSim + "\n");
+        }
 
-            bestTripDist = new double[1];
-            bestTrip = new int[ncities];
-            allBestDist = new double[nprocs];
-            allBestTrip = new int[nprocs][ncities];
-
-            init();     // * Initializing Cities and Ants Collection
-
-            for(int i = 0; i < niter; i++) {
-                // * Setting Up every Ant one by one
-                // * The process runs for (# Ants/# Processes) so as to distribute the Ants over each Processes
-                for(int j = 0; j < (Parameters.nants/nprocs); j++)
-                    ants[j].setup();
-
-                // * Move every Ant over all the Cities
-                for(int j = 0; j < ncities; j++)
-                    for(int k = 0; k < (Parameters.nants/nprocs); k++)
-                        ants[k].moveAnt();
-
-                // * Update the Evaporation of Phermomones from all Cities
-                for(int j = 0; j < ncities; j++)
-                    cities[j].evaporatePhermones();
-
-                // * Update overall Pheromone Trails
-                for(int j = 0; j < ncities; j++)
-                    for(int k = 0; k < (Parameters.nants/nprocs); k++)
-                        ants[k].updatePherTrails();
+        // * Start of Actual TSP Problem
+        Termination.startRun();
+        boolean stopRun = false;    // * Set when the time budget is spent, the remaining Simulations are skipped
+        for(int sim = firstSim; (sim <= Parameters.maxSims || Incremental.active()) && !stopRun; sim++) {
+            // * After its first Simulation an incremental run waits for the next changes and goes on from the best Tour
+            int warmTrip[] = null;
+            if(Incremental.active() && sim > firstSim) {
+                warmTrip = Incremental.next(globalBestTrip, niter, root);
+                if(warmTrip == null)
+                    break;
             }
+            if(rank == root)
+                System.out.println("Simulation #" + sim + ((warmTrip != null) ? " :: " + Incremental.summary : ""));
 
-            // * Finding the Shortest Path Traversed by all the Ants in a single Node
-            if(debug == 1)
-                System.out.println("[" + rank + "] Computation Completed. Finding Best Trip");
-            int min = 0;
-            for(int j = 1; j < (Parameters.nants/nprocs); j++){
-                if(ants[min].tripDist > ants[j].tripDist)   // * Finding the index of the Ant with the minimum Distance Traversed
-                    min = j;
-            }
-            bestTripDist[0] = ants[min].tripDist;   // * Storing the Shortest Distance Traversed
-            bestTrip = ants[min].tour;              // * Storing the Shortest Path Traversed
-            if(debug == 1) {
-                System.out.println("[" + rank + "] Best Distance :" + bestTripDist[0] +"\n Best Trip :" + arrayToString(bestTrip));
-                System.out.println("[" + rank + "] Reaching Barrier");
+            bestTripDist = new double[] { Double.MAX_VALUE };
+            bestTrip = new int[ncities];
+            globalBestTrip = new int[ncities];
+            targetTime = new double[] { Double.MAX_VALUE };
+            long simStart = System.currentTimeMillis();
+
+            if(warmTrip == null)
+                init();     // * Initializing Cities and Ants Collection
+            else {
+                // * Keeping the Pheromones patched by the changes, the repaired Tour is the one to beat
+                bestTrip = warmTrip;
+                bestTripDist[0] = tourLength(warmTrip);
+                if(rank == root)
+                    System.out.println("Warm Start Distance :: " + report(warmTrip, bestTripDist[0]));
             }
+            int simIters = (warmTrip != null) ? Incremental.iterations : niter;
+            Termination.startSimulation();
+            int firstIter = Checkpoint.restored ? Checkpoint.apply(bestTrip, bestTripDist) : 0;
+
+            for(int i = firstIter; i < simIters; i++) {
+                // * Tours, Local Search, Evaporation and Deposits of the Ants of this Node
+                boolean refreshAll = iterate();
+
+                // * Keeping the Shortest Path Traversed by the Ants of this Node so far
+                Ant iterationBest = iterationBest();
+                if(iterationBest.tripDist < bestTripDist[0]) {
+                    Termination.improved(i);
+                    bestTripDist[0] = iterationBest.tripDist;
+                    System.arraycopy(iterationBest.tour, 0, bestTrip, 0, ncities);
+                    if(bestTripDist[0] <= Parameters.targetDist && targetTime[0] == Double.MAX_VALUE)
+                        targetTime[0] = System.currentTimeMillis() - simStart;
+                }
 
-            MPI.COMM_WORLD.Barrier();   // * Barrier Synchronization
+                // * Combining the Pheromone information of all the Nodes every Parameters.shareInterval Iterations
+                long t;
+                if(nprocs > 1 && Parameters.shareMode != 0 && (i + 1) % Parameters.shareInterval == 0) {
+                    Metrics.waitAll();
+                    t = Metrics.start();
+                    shareColonies(iterationBest, bestTrip, bestTripDist);
+                    Metrics.stop(Metrics.SHARE, t);
+                    refreshAll |= (Parameters.shareMode == 1);
+                }
 
-            // * Fetching the Shortest Distance travelled by the Ants in every MPI Node
-            if(rank == root){
-                if(debug == 1)
-                    System.out.println("[" + rank + "] Gathering Best Trip Details");
+                // * Refresh the Choice Values read by the Ants in the next Iteration
+                // * With lazy Evaporation the deposits already refreshed the Edges they touched
+                t = Metrics.start();
+                if(refreshAll)
+                    parallelFor(ncities, j -> cities[j].updateChoiceInfo());
+                Metrics.stop(Metrics.REFRESH, t);
+
+                Metrics.iteration(sim, i, bestTripDist[0], iterationBest.tripDist, ants, Parameters.nants/nprocs);
+
+                // * Deciding together with all the Nodes whether this Simulation goes on
+                if(Termination.active()) {
+                    int decision = Termination.check(i, bestTripDist[0]);
+                    if(decision != Termination.CONTINUE) {
+                        stopRun = (decision == Termination.STOP_RUN);
+                        if(rank == root)
+                            System.out.println("Stopped after " + (i + 1) + " Iterations :: " + Termination.reason);
+                        break;
+                    }
+                }
 
-                allBestDist[0] = bestTripDist[0];
-                for(int k = 1; k < nprocs; k++) {
-                    if(debug == 1)
-                        System.out.println("[" + rank + "] Receiving Dsitance from rank " + k);
-                    MPI.COMM_WORLD.Recv(allBestDist[k], 0, 1, MPI.DOUBLE, k, 0);
+                // * Snapshotting the Colony, the file is written in the background while the next Iterations run
+                if(Checkpoint.due(i)) {
+                    t = Metrics.start();
+                    Checkpoint.save(sim, i, bestTrip, bestTripDist[0], Termination.lastImprovement());
+                    Metrics.stop(Metrics.CHECKPOINT, t);
                 }
             }
-            else{
-                if(debug == 1)
-                    System.out.println("[" + rank + "] Sending Dsitance to root");
 
-                MPI.COMM_WORLD.Send(bestTripDist, 0, 1, MPI.DOUBLE, root, 0);
+            // * Finding the Earliest Time any Node reached the Target Distance
+            Metrics.waitAll();
+            long gatherStart = Metrics.start();
+            double firstTargetTime[] = new double[1];
+            comm.allreduce(targetTime, 0, firstTargetTime, 0, 1, Comm.MIN);
+            if(rank == root && Parameters.targetDist > 0) {
+                if(firstTargetTime[0] == Double.MAX_VALUE)
+                    System.out.println("Target Distance " + Parameters.targetDist + " not reached");
+                else
+                    System.out.printf("Time to Target :: %d ms\n", (long) firstTargetTime[0]);
             }
 
-            // * Fetching the SHortest Path travelled by the Ants in every MPI Node
-            if(rank == root){
-                if(debug == 1)
-                    System.out.println("[" + rank + "] Gathering Best Trip Details");
-
-                allBestTrip[0] = bestTrip;
-                for(int k = 1; k < nprocs; k++) {
-                    if(debug == 1)
-                        System.out.println("[" + rank + "] Receiving trip from rank " + k);
-                    MPI.COMM_WORLD.Recv(allBestTrip[k], 0, ncities, MPI.INT, k, 0);
-                }
+            if(debug == 1) {
+                System.out.println("[" + rank + "] Best Distance :" + bestTripDist[0] +"\n Best Trip :" + arrayToString(bestTrip));
+                System.out.println("[" + rank + "] Reducing Best Trip");
             }
-            else{
-                if(debug == 1)
-                    System.out.println("[" + rank + "] Sending trip to root");
 
-                MPI.COMM_WORLD.Send(bestTrip, 0, ncities, MPI.INT, root, 0);
-            }
+            // * Finding the Minimum Distance Traversed over all the MPI Nodes and the Path Taken
+            double globalBestDist = globalBest(bestTrip, bestTripDist[0], globalBestTrip);
+            Metrics.stop(Metrics.GATHER, gatherStart);
+            Metrics.simulation(sim, root);     // * Totals of the Simulation over all the Nodes
 
             if(rank == root) {
-                if(debug == 1)
-                    System.out.println("[" + rank + "] Mining Minimum");
-
-                // * Finding the Minimum Distance Traversed and the Path Taken
-                int m = 0;
-                for(int i = 0; i < nprocs; i++) {
-                    if(allBestDist[m] < allBestDist[i])
-                        m = i;
-                }
                 // * Printing the minimum Distance
-                System.out.printf("Best Trip Distance :: %.2f\n", allBestDist[m]);
+                System.out.println("Best Trip Distance :: " + report(globalBestTrip, globalBestDist));
                 System.out.print("Best Trip :: ");
                 for(int i = 0; i < ncities; i++)
-                    System.out.print(allBestTrip[m][i] + " ");
+                    System.out.print(globalBestTrip[i] + " ");
                 System.out.println();
                 System.out.println();
             }
@@ -193,8 +319,12 @@ public class Acotsp {
             System.out.printf("Elapsed Time :: %d ms\n", (endTime - startTime));
         }
 
+        Metrics.close();
+        Checkpoint.close();
+        Incremental.close();
+
         // * Turning off MPI
-        MPI.Finalize();
+        comm.finish();
     }
 
     /*
@@ -206,43 +336,194 @@ public class Acotsp {
         System.out.println("Printing for rank " + rank);
         for(int i = 0; i < ncities; i++) {
             for(int j = 0; j < ncities; j++) {
-                System.out.print(GRAPH[i][j] + "\t");
+                System.out.print(distance(i, j) + "\t");
             }
             System.out.println();
         }
     }
 
+    /*
+        * isTsplib()
+        * @ desc : Check if the Input File is a TSPLIB Coordinate file rather than an adjacency list
+        * @ param : Name of the Input File
+    */
+    public static boolean isTsplib(String file) {
+        return file.toLowerCase().endsWith(".tsp");
+    }
+
+    /*
+        * distance()
+        * @ desc : Distance between two Cities, read from the Distance Matrix or computed from the Coordinates
+        * @ param : The two Cities
+    */
+    public static double distance(int i, int j) {
+        return (GRAPH != null) ? GRAPH.get(i, j) : COORDS.distance(i, j);
+    }
+
+    /*
+        * cost()
+        * @ desc : Length of an Edge as a Tour pays it, a missing Edge of an adjacency list (Distance 0) costs missingEdge,
+        * so the Local Search and the insertion of Cities stay off it and a Tour through one is never taken for a short one
+    */
+    static double cost(int i, int j) {
+        if (GRAPH == null || i == j)
+            return distance(i, j);
+        double d = GRAPH.get(i, j);
+        return (d > 0.0) ? d : missingEdge;
+    }
+
+    /*
+        * missingEdges()
+        * @ desc : Number of missing Edges a closed Tour takes, 0 for a feasible Tour
+    */
+    static int missingEdges(int trip[]) {
+        if (GRAPH == null)
+            return 0;
+        int count = 0;
+        for (int i = 0; i < trip.length; i++)
+            if (GRAPH.get(trip[i], trip[(i + 1 == trip.length) ? 0 : i + 1]) <= 0.0)
+                count++;
+        return count;
+    }
+
+    /*
+        * report()
+        * @ desc : A Tour length as printed, an infeasible Tour is given with its Distance over the existing Edges
+    */
+    static String report(int trip[], double length) {
+        int missing = missingEdges(trip);
+        if (missing == 0)
+            return String.format("%.2f", length);
+        return String.format("%.2f (infeasible :: %d missing Edges)", length - missing * missingEdge, missing);
+    }
+
+    /*
+        * newMatrix()
+        * @ desc : Allocate a Matrix shaped like the Heuristic Matrix, sparse over the Candidate Lists for Coordinate input
+    */
+    static Matrix newMatrix() {
+        if (GRAPH == null)
+            return new Matrix(NEIGHBORS, Parameters.singlePrecision);
+        return new Matrix(ncities, Parameters.singlePrecision, Parameters.packedGraph);
+    }
+
     /*
         * readFile(Fielname)
         * @ desc : Read File and generate Graph
         * @ param : Name of the Input File
     */
     public void readFile(String file) throws NumberFormatException, IOException {
-        BufferedReader br = null;
-        GRAPH = new double[ncities][ncities];
-        try {
-            br = new BufferedReader(new FileReader(file));
-            String line;
-            while((line = br.readLine()) != null) {
-                String[] parts = line.split("=");
-                int x = Integer.parseInt(parts[0]);
-                String part2 = parts[1];
-                String[] subparts = part2.split(",");
-                for(int i = 0; i < subparts.length; i++) {
-                    String[] neighbor = subparts[i].split(":");
-                    int vertex = Integer.parseInt(neighbor[0]);
-                    double dist = Double.parseDouble(neighbor[1]);
-                    GRAPH[x-1][vertex-1] = dist;
-                    GRAPH[vertex-1][x-1] = dist;
+        // * Reusing the Binary Cache of an earlier run on the same Input File
+        if (Parameters.graphCache && GraphCache.load(file))
+            return;
+
+        if (COORDS != null)
+            COORDS.read(file);                      // * TSPLIB Coordinates, no Distance Matrix is built
+        else {
+            FastReader in = null;
+            try {
+                in = new FastReader(file);
+                // * One "x=v:d,v:d,..." line per City
+                while(in.skipWhitespace() >= 0) {
+                    int x = in.readInt();
+                    in.expect('=');
+                    do {
+                        int vertex = in.readInt();
+                        in.expect(':');
+                        double dist = in.readDouble();
+                        GRAPH.set(x-1, vertex-1, dist);
+                        GRAPH.set(vertex-1, x-1, dist);
+                    } while(in.skipSpaces() == ',' && in.read() == ',');
                 }
+            } finally {
+                if(in!=null)
+                    in.close();
             }
-        } catch(IOException e){
-            e.printStackTrace();
-            System.exit(-1);
-        } finally {
-            if(br!=null)
-                br.close();
         }
+
+        if (Parameters.graphCache)
+            GraphCache.save(file);
+    }
+
+    /*
+        * buildCandidateLists()
+        * @ desc : Compute the Candidate List of the k Nearest Neighbors of every City
+        * The lists only depend on the Distance Matrix, so they are built once after reading the Input File
+    */
+    public static void buildCandidateLists() {
+        if (GRAPH == null) {
+            NEIGHBORS = COORDS.nearestNeighbors(Parameters.ncandidates);
+            return;
+        }
+
+        NEIGHBORS = new int[ncities][];
+        for(int i = 0; i < ncities; i++)
+            NEIGHBORS[i] = candidateList(i);
+    }
+
+    /*
+        * candidateList()
+        * @ desc : Candidate List of one City of the Distance Matrix, its k nearest Neighbors closest first
+        * @ param : The City
+    */
+    static int[] candidateList(int i) {
+        int k = Math.min(Parameters.ncandidates, ncities - 1);
+        if (k < 0) k = 0;
+        int list[] = new int[k];
+        int size = 0;
+        for(int j = 0; j < ncities; j++) {
+            // * Skipping the City itself and the missing Edges
+            double d = GRAPH.get(i, j);
+            if (j == i || d <= 0.0)
+                continue;
+            if (size == k && (k == 0 || d >= GRAPH.get(i, list[k-1])))
+                continue;
+
+            // * Insertion into the sorted List, dropping the farthest Neighbor when full
+            int p = (size < k) ? size++ : k - 1;
+            while (p > 0 && GRAPH.get(i, list[p-1]) > d) {
+                list[p] = list[p-1];
+                p--;
+            }
+            list[p] = j;
+        }
+        return (size == k) ? list : java.util.Arrays.copyOf(list, size);
+    }
+
+    /*
+        * buildHeuristics()
+        * @ desc : Compute the Heuristic Value (1/distance)^beta of every Edge
+        * It only depends on the Distance Matrix, so it is computed once after reading the Input File
+    */
+    public static void buildHeuristics() {
+        HEURISTIC = newMatrix();
+        for(int i = 0; i < ncities; i++) {
+            int from = HEURISTIC.rowOffset(i);
+            for(int k = from; k < from + HEURISTIC.rowLength(i); k++) {
+                int j = HEURISTIC.column(i, k);
+                double d = (j < 0) ? 0.0 : distance(i, j);
+                HEURISTIC.put(k, (d > 0.0) ? Math.pow(1.0 / d, Parameters.beta) : 0.0);   // * Missing Edges are never chosen
+            }
+        }
+    }
+
+    /*
+        * buildMatrices()
+        * @ desc : Build the Candidate Lists, the Heuristic Matrix and the empty Pheromone and Choice Matrices
+        * of the instance held by GRAPH or COORDS
+    */
+    static void buildMatrices() {
+        if (GRAPH != null) {
+            // * One missing Edge costs more than n of the longest Edges, so every feasible Tour is shorter
+            double longest = 0.0;
+            for (int k = 0; k < GRAPH.length(); k++)
+                longest = Math.max(longest, GRAPH.at(k));
+            missingEdge = (ncities + 1) * Math.max(longest, 1.0);
+        }
+        buildCandidateLists();              // * Precomputing the Nearest Neighbors of every City
+        buildHeuristics();                  // * Precomputing the Heuristic Values of every Edge
+        PHEROMONES = newMatrix();
+        CHOICE = newMatrix();
     }
 
     /*
@@ -251,14 +532,304 @@ public class Acotsp {
     */
     public static void init() {
         // * Initializing the Collection of City Objects
+        pherScale = 1.0;
+        update = (Parameters.pheromoneUpdate == PheromoneUpdate.MAX_MIN) ? new MaxMinAntSystem()
+               : (Parameters.pheromoneUpdate == PheromoneUpdate.ANT_COLONY_SYSTEM) ? new AntColonySystem()
+               : new AntSystem();
         cities = new City[ncities];
         for(int i = 0; i < ncities; i++)
-            cities[i] = new City(GRAPH[i]);
+            cities[i] = new City(i, NEIGHBORS[i]);
+
+        // * Initializing the Collection of Ant Objects once, the next Simulations continue their random streams
+        if (ants == null) {
+            ants = new Ant[Parameters.nants];
+            for(int i = 0; i < (Parameters.nants/nprocs); i++)
+                ants[i] = new Ant(i);
+        }
+    }
 
-        // * Initializing the Collection of Ant Objects
-        ants = new Ant[Parameters.nants];
-        for(int i = 0; i < (Parameters.nants/nprocs); i++)
-            ants[i] = new Ant(i);
+    /*
+        * iterate()
+        * @ desc : One Iteration of the Ants of this Node : build the Tours, improve them, evaporate and deposit
+        * @ return : True if every Choice Value needs a refresh before the next Iteration
+    */
+    static boolean iterate() {
+        int nlocal = Parameters.nants/nprocs;
+
+        // * Every Ant builds its whole Tour, the Ants of this Node are spread over the worker Threads
+        // * The process runs for (# Ants/# Processes) so as to distribute the Ants over each Processes
+        // * The Ants only read the shared Matrices while building, so the Threads never write the same entry
+        long t = Metrics.start();
+        if(Parameters.pheromoneUpdate == PheromoneUpdate.ANT_COLONY_SYSTEM) {
+            // * The local updates of Ant Colony System write the Matrices while the Ants build, so the Ants take
+            // * their steps one after the other in Ant order on this Thread, and a seed still gives one result
+            for(int k = 0; k < nlocal; k++)
+                ants[k].setup();
+            for(int j = 0; j < ncities; j++)
+                for(int k = 0; k < nlocal; k++)
+                    ants[k].moveAnt();
+        }
+        else
+            parallelFor(nlocal, k -> ants[k].constructTour());
+        Metrics.stop(Metrics.CONSTRUCT, t);
+
+        // * Improving the Tours before they deposit, either every Tour or only the iteration-best one
+        t = Metrics.start();
+        if(Parameters.localSearch == 2)
+            parallelFor(nlocal, k -> ants[k].improveTour());
+        else if(Parameters.localSearch == 1)
+            iterationBest().improveTour();
+        Metrics.stop(Metrics.LOCAL_SEARCH, t);
+
+        // * Update the Evaporation of Phermomones from all Cities
+        t = Metrics.start();
+        boolean refreshAll = update.evaporate();
+        Metrics.stop(Metrics.EVAPORATE, t);
+
+        // * Update overall Pheromone Trails by the rule of Parameters.pheromoneUpdate
+        t = Metrics.start();
+        update.deposit(nlocal);
+        Metrics.stop(Metrics.DEPOSIT, t);
+        return refreshAll;
+    }
+
+    /*
+        * iterationBest()
+        * @ desc : The Ant of this Node with the shortest Tour of the Iteration
+    */
+    static Ant iterationBest() {
+        Ant best = ants[0];
+        for(int k = 1; k < (Parameters.nants/nprocs); k++)
+            if(ants[k].tripDist < best.tripDist)
+                best = ants[k];
+        return best;
+    }
+
+    /*
+        * runColony()
+        * @ desc : Run the Ants of this Node alone, without any collective, stopping early after
+        * Parameters.stagnationIters Iterations without improvement when set
+        * @ param : The Number of Iterations and the array receiving the best Tour
+        * @ return : The Distance of the best Tour
+    */
+    static double runColony(int niter, int best[]) {
+        double bestDist = Double.MAX_VALUE;
+        int lastImprovement = 0;
+        for (int i = 0; i < niter; i++) {
+            boolean refreshAll = iterate();
+            Ant iterationBest = iterationBest();
+            if (iterationBest.tripDist < bestDist) {
+                bestDist = iterationBest.tripDist;
+                System.arraycopy(iterationBest.tour, 0, best, 0, ncities);
+                lastImprovement = i;
+            }
+            if (Parameters.stagnationIters > 0 && i - lastImprovement >= Parameters.stagnationIters)
+                break;
+            if (refreshAll)
+                parallelFor(ncities, j -> cities[j].updateChoiceInfo());
+        }
+        return bestDist;
+    }
+
+    /*
+        * evaporate()
+        * @ desc : Evaporate the Pheromones of all the Cities
+        * Eager Evaporation scales every entry, every City owns a disjoint part of the Matrix.
+        * Lazy Evaporation only scales the global factor pherScale in O(1) and the deposits are divided by it,
+        * the stored values are folded back into the Matrix when the factor nears underflow.
+        * A uniform factor cancels out of the selection Probabilities, so the Choice Values stay valid.
+        * @ return : True if every Choice Value needs a refresh after the deposits
+    */
+    static boolean evaporate() {
+        if (!Parameters.lazyEvaporation) {
+            parallelFor(ncities, j -> cities[j].evaporatePhermones());
+            return true;
+        }
+
+        pherScale *= Parameters.rho;
+        if (pherScale < (PHEROMONES.single ? 1e-4 : 1e-30)) {
+            double factor = pherScale;
+            parallelFor(ncities, j -> cities[j].scalePheromones(factor));
+            pherScale = 1.0;
+            return true;
+        }
+        return false;
+    }
+
+    /*
+        * shareColonies()
+        * @ desc : Combine the Pheromone information of the Colonies of all the MPI Nodes
+        * Parameters.shareMode 1 averages the Pheromone Matrices with an Allreduce,
+        * 2 deposits the iteration-best Tour of every Node on every Node,
+        * 3 runs islands that pass their best Tour so far to the next Node of a ring
+        * @ param : The iteration-best Ant of this Node, the best Tour of this Node so far and its Distance
+    */
+    private static void shareColonies(Ant iterationBest, int bestTrip[], double bestTripDist[]) {
+        if (Parameters.shareMode == 1) {
+            if (shareBuffer == null)
+                shareBuffer = newMatrix();
+            comm.allreduce(PHEROMONES.buffer(), 0, shareBuffer.buffer(), 0, PHEROMONES.length(), Comm.SUM);
+
+            // * Swapping in the summed Matrix, the old one becomes the next receive buffer
+            Matrix summed = shareBuffer;
+            shareBuffer = PHEROMONES;
+            PHEROMONES = summed;
+            PHEROMONES.scale(1.0 / nprocs);
+        }
+        else if (Parameters.shareMode == 2) {
+            if (shareTrips == null) {
+                shareTrips = new int[nprocs * ncities];
+                shareDists = new double[nprocs];
+            }
+            double dist[] = { iterationBest.tripDist };
+            comm.allgather(iterationBest.tour, 0, ncities, shareTrips, 0);
+            comm.allgather(dist, 0, 1, shareDists, 0);
+
+            // * The Ants of this Node already deposited its own Tour
+            for (int p = 0; p < nprocs; p++)
+                if (p != rank)
+                    depositTour(shareTrips, p * ncities, Parameters.Q / shareDists[p]);
+        }
+        else if (Parameters.shareMode == 3) {
+            if (shareTrips == null) {
+                shareTrips = new int[ncities];
+                shareDists = new double[1];
+            }
+            int next = (rank + 1) % nprocs;
+            int prev = (rank - 1 + nprocs) % nprocs;
+            comm.sendrecv(bestTrip, 0, ncities, next, shareTrips, 0, prev, 1);
+            comm.sendrecv(bestTripDist, 0, 1, next, shareDists, 0, prev, 2);
+
+            // * The Migrant Tour reinforces its Edges and replaces the best Tour of this Node if it is shorter
+            depositTour(shareTrips, 0, Parameters.Q / shareDists[0]);
+            if (shareDists[0] < bestTripDist[0]) {
+                bestTripDist[0] = shareDists[0];
+                System.arraycopy(shareTrips, 0, bestTrip, 0, ncities);
+            }
+        }
+    }
+
+    /*
+        * globalBest()
+        * @ desc : Find the shortest Tour over all the MPI Nodes with two collectives, so it may also be called mid-run
+        * A MINLOC Allreduce finds the shortest Distance and the Node holding it, that Node then broadcasts its Tour
+        * @ param : The best Tour of this Node, its Distance and the array receiving the global best Tour
+        * @ return : The Distance of the global best Tour
+    */
+    static double globalBest(int trip[], double dist, int globalTrip[]) {
+        double local[] = { dist, rank };    // * (Distance, Rank) pair for MINLOC
+        double global[] = new double[2];
+        comm.allreduceMinloc(local, 0, global, 0, 1);
+
+        int owner = (int) global[1];
+        if (rank == owner)
+            System.arraycopy(trip, 0, globalTrip, 0, ncities);
+        comm.bcast(globalTrip, 0, ncities, owner);
+        return global[0];
+    }
+
+    /*
+        * tourLength()
+        * @ desc : Distance of a closed Tour, every missing Edge costing missingEdge
+    */
+    static double tourLength(int trip[]) {
+        double length = 0.0;
+        for (int i = 0; i < trip.length; i++)
+            length += cost(trip[i], trip[(i + 1 == trip.length) ? 0 : i + 1]);
+        return length;
+    }
+
+    /*
+        * nearestNeighborLength()
+        * @ desc : Distance of the greedy nearest-neighbour Tour from City 0, for the initial Pheromones of the update rules
+        * that need one. Each step takes the first unvisited City of the Candidate List, and only scans the unvisited
+        * Cities when every Candidate is visited, so the Tour costs O(n * k) plus those few scans
+    */
+    static double nearestNeighborLength() {
+        int unvisited[] = new int[ncities];     // * The unvisited Cities first, swap-removed as in the Ant
+        int slot[] = new int[ncities];
+        for (int i = 0; i < ncities; i++) {
+            unvisited[i] = i;
+            slot[i] = i;
+        }
+        int remaining = ncities;
+        int city = 0;
+        double length = 0.0;
+        for (int step = 1; step <= ncities; step++) {
+            // * Removing the Current City from the unvisited ones
+            int last = unvisited[--remaining];
+            unvisited[slot[city]] = last;
+            slot[last] = slot[city];
+            unvisited[remaining] = city;
+            slot[city] = remaining;
+
+            int next = -1;
+            if (step == ncities)
+                next = 0;       // * Closing the Tour
+            else {
+                for (int c : NEIGHBORS[city])
+                    if (slot[c] < remaining) {
+                        next = c;
+                        break;
+                    }
+                if (next < 0) {
+                    // * Every Candidate is visited, taking the nearest unvisited City, or any one if only missing Edges are left
+                    next = unvisited[0];
+                    double nearest = Double.MAX_VALUE;
+                    for (int i = 0; i < remaining; i++) {
+                        double d = distance(city, unvisited[i]);
+                        if (d > 0.0 && d < nearest) {
+                            nearest = d;
+                            next = unvisited[i];
+                        }
+                    }
+                }
+            }
+            double d = distance(city, next);
+            if (d > 0.0)
+                length += d;    // * A missing Edge of an adjacency list adds nothing
+            city = next;
+        }
+        return (length > 0.0) ? length : 1.0;
+    }
+
+    /*
+        * depositTour()
+        * @ desc : Put Pheromone on every Edge of a Tour
+        * @ param : The array holding the Tour, the Offset of its first City and the amount per Edge
+    */
+    static void depositTour(int trip[], int offset, double contribution) {
+        for (int i = 0; i < ncities; i++)
+            cities[trip[offset + i]].deposit( trip[offset + ( ( i + 1 == ncities ) ? 0 : i + 1 )], contribution );
+    }
+
+    /*
+        * loadVectorKernel()
+        * @ desc : Load the SIMD kernel and check that it agrees with the scalar one on random Rows
+        * @ return : The SIMD kernel, or the scalar one when the Vector API is missing or the kernels differ
+    */
+    static ProbabilityKernel loadVectorKernel() {
+        ProbabilityKernel vector = ProbabilityKernel.vector();
+        if (vector == null)
+            System.err.println("[" + rank + "] Vector API not available (run with --add-modules jdk.incubator.vector), using the scalar kernel");
+        else if (ProbabilityKernel.matches(vector, 64, 1L) >= 0)
+            System.err.println("[" + rank + "] SIMD kernel does not match the scalar kernel, using the scalar kernel");
+        else
+            return vector;
+        return ProbabilityKernel.SCALAR;
+    }
+
+    /*
+        * parallelFor()
+        * @ desc : Run a task for every index, on the worker Threads when there are any
+        * @ param : The Number of indexes and the task
+    */
+    static void parallelFor(int count, IntConsumer task) {
+        if (workers == null)
+            for(int i = 0; i < count; i++)
+                task.accept(i);
+        else
+            workers.submit(() -> IntStream.range(0, count).parallel().forEach(task)).join();
     }
 
     /*
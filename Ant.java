@@ -1,20 +1,24 @@
 import java.io.*;
 import java.lang.*;
-import java.util.Random;
 
 /*
     * Ant Object Class
 */
 public class Ant {
-    private boolean visited[];      // * Boolean Collection of Visited Cities
+    private int unvisited[];        // * Collection of all the Cities, the unvisited ones first
+    private int slot[];             // * Position of every City in the unvisited Collection
+    private int remaining;          // * # of unvisited Cities, a City is visited when its slot is beyond it
     public int tour[];              // * Collection of Cities visited
-    private double probCity[];      // * Collection of Probabilities of selecting the Next City
+    private double probCity[];      // * Cumulative Choice Values over the unvisited Cities, for selecting the Next City
+    private double probCand[];      // * Collection of Probabilities of selecting each Candidate of the Current City
     public double tripDist = 0.0;   // * Total Distance Traversed
     private int ncities;            // * Number of cities
     private int currCity;           // * Current City Location of the Ant
     private int visitCount = 0;     // * # of Cities Visited
-    private Random rand;            // * Random Object
+    private Rng rand;               // * Random number stream of this Ant
     private int antIndex;           // * Index of the Ant
+    private LocalSearch localSearch;// * Working arrays of the Tour improvement, allocated on first use
+    long counts[] = new long[Metrics.COUNTERS.length];  // * Step counters, collected by Metrics every Iteration
 
     /*
         * Ant()
@@ -24,10 +28,30 @@ public class Ant {
     public Ant(int indx) {
         super();
         ncities = Acotsp.ncities;
-        visited = new boolean[ncities];
+        unvisited = new int[ncities];
+        slot = new int[ncities];
+        for (int i = 0; i < ncities; i++) {
+            unvisited[i] = i;
+            slot[i] = i;
+        }
         tour = new int[ncities];
         probCity = new double[ncities];
+        probCand = new double[Math.max(Parameters.ncandidates, 0)];
         antIndex = indx;
+        rand = Rng.create(Rng.streamSeed(Acotsp.seed, Acotsp.rank, indx));
+    }
+
+    /*
+        * reseed()
+        * @ desc : Restart the random stream of the Ant, so a reused Ant behaves like a new one
+        * @ param : The seed of the stream
+    */
+    public void reseed(long streamSeed) {
+        rand = Rng.create(streamSeed);
+        for (int i = 0; i < ncities; i++) {     // * The unvisited order decides the scans, it starts over as well
+            unvisited[i] = i;
+            slot[i] = i;
+        }
     }
 
     /*
@@ -37,21 +61,39 @@ public class Ant {
     public void setup() {
         clearVisits();
 
-        rand = new Random();
-        currCity = rand.nextInt() % ncities;    // * Selecting a Random City to Start from
-        if(currCity < 0) currCity *= -1;        // * Converting Negative indexes into Positive
-
-        visited[currCity] = true;               // * Set Current City visit flag to True
+        currCity = rand.nextInt(ncities);       // * Selecting a Random City to Start from
         visitCount = 0;
 
         visitCity(currCity);                    // * Visit the Selected City
     }
 
+    /*
+        * constructTour()
+        * @ desc : Build a whole Tour, from a random start City back to it
+        * Only this Ant's own arrays are written, so Ants may build their Tours on different Threads
+    */
+    public void constructTour() {
+        setup();
+        for (int i = 0; i < ncities; i++)
+            moveAnt();
+    }
+
+    /*
+        * improveTour()
+        * @ desc : Improve the finished Tour with 2-opt and Or-opt moves and update the Traversed Distance
+    */
+    public void improveTour() {
+        if (localSearch == null)
+            localSearch = new LocalSearch(ncities);
+        tripDist = localSearch.improve(tour);
+    }
+
     /*
         * moveAnt()
         * @ desc : Function to Move the Ant
     */
     public void moveAnt() {
+        int from = currCity;
         // * If all cities are visited visit the source to complete the round trip
         if ( visitCount == ncities ) {
             visitCity(tour[0]);
@@ -59,6 +101,7 @@ public class Ant {
         }
         else
             visitCity(selectNextCity());
+        Acotsp.update.localUpdate(from, currCity);  // * Only Ant Colony System updates the Edge just taken
     }
 
     /*
@@ -68,85 +111,235 @@ public class Ant {
     */
     private int selectNextCity( ) {
         int nextCity = -1;
-        // * Randomly Secting the next City on a Random Probability
+        if (Metrics.ENABLED)
+            counts[Metrics.STEPS]++;
+        // * Randomly Secting the next City on a Random Probability, uniformly among the unvisited Cities
         if (rand.nextDouble() < Parameters.pureRandSelProb) {
-            int t = rand.nextInt(ncities - currCity);           // * Finding a Random City
-            if ( ( nextCity = selectNthCity( t ) ) != -1 ) {    // * Checking if the Random City is visited
-                if(Acotsp.debug == 1)
-                    System.out.println("[" + Acotsp.rank + "]DEBUG :: Ant[" + antIndex + "] chose " + nextCity + " randomly." );
-                return nextCity;
+            if (Metrics.ENABLED)
+                counts[Metrics.RANDOM]++;
+            return unvisited[rand.nextInt(remaining)];
+        }
+        // * Taking the best Edge outright under Ant Colony System, the other rules never draw here
+        double q0 = Acotsp.update.exploitation();
+        if (q0 > 0.0 && rand.nextDouble() < q0) {
+            if (Metrics.ENABLED)
+                counts[Metrics.EXPLOIT]++;
+            return selectBestCity();
+        }
+        // * Selecting among the unvisited Nearest Neighbors of the Current City first
+        if ( ( nextCity = selectCandidateCity( ) ) != -1 ) {
+            if (Metrics.ENABLED)
+                counts[Metrics.CANDIDATE]++;
+            return nextCity;
+        }
+
+        // * Every Candidate is visited and Coordinate input keeps no Pheromone outside the Candidate Edges
+        if ( Acotsp.CHOICE.sparse ) {
+            if (Metrics.ENABLED)
+                counts[Metrics.NEAREST]++;
+            return selectNearestCity( );
+        }
+
+        // * Every Candidate is visited, so Calculate the Cumulative Probabilities over the unvisited Cities
+        double total = edgeSelProb( );
+        if (total <= 0.0) {
+            if (Metrics.ENABLED)
+                counts[Metrics.SCAN_EMPTY]++;
+            return unvisited[0];    // * Only missing Edges are left, take any unvisited City
+        }
+        if (Metrics.ENABLED)
+            counts[Metrics.SCAN]++;
+
+        // * Randomly selecting the next city according to Probability, by a binary search of the Cumulative Values
+        double r = rand.nextDouble() * total;
+        int lo = 0;
+        int hi = remaining - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (probCity[mid] > r)
+                hi = mid;
+            else
+                lo = mid + 1;
+        }
+        return unvisited[lo];
+    }
+
+    /*
+        * selectCandidateCity()
+        * @ desc : Selection of the Next City among the unvisited Candidates using the Probability Function
+        * @ return : The Candidate to Visit Next or -1 if every Candidate is visited
+    */
+    private int selectCandidateCity() {
+        City city = Acotsp.cities[currCity];
+        int[] candidates = city.candidates;     // * Fetching the Nearest Neighbors of the Current City
+
+        // * Calculating the Weights of the unvisited Candidates
+        double total = 0.0;
+        for (int i = 0; i < candidates.length; i++) {
+            int c = candidates[i];
+            if (isVisited(c)) {
+                probCand[i] = 0.0;
+            } else {
+                probCand[i] = city.candidateChoice(i);
+                total += probCand[i];
             }
         }
-        // * Calculate the Probabilities for a visit to Each City
-        edgeSelProb( );
+        if (total <= 0.0)
+            return -1;
 
-        // * Randomly selecting the next city according to Probability
-        double r = rand.nextDouble();
+        // * Randomly selecting the Candidate according to its Weight
+        double r = rand.nextDouble() * total;
         double tot = 0;
-        for (int i = 0; i < ncities; i++) {
-            tot += probCity[i];
-            if (tot >= r) {
-                if(Acotsp.debug == 1)
-                    System.out.println( "[" + Acotsp.rank + "]DEBUG :: Ant[" + antIndex + "] chose " + i + " with probs = " + r );
-                return i;
+        int last = -1;
+        for (int i = 0; i < candidates.length; i++) {
+            if (probCand[i] > 0.0) {
+                last = i;
+                tot += probCand[i];
+                if (tot >= r)
+                    return candidates[i];
             }
         }
-        if ( ( nextCity = selectNthCity( 0 ) ) != -1 ) {
-            if(Acotsp.debug == 1)
-                System.out.println( "[" + Acotsp.rank + "]DEBUG :: Ant[" + antIndex + "] chose " + nextCity + " as the 1st available city, because tot = " + tot + " < r = " + r );
-            return nextCity;
+        return candidates[last];    // * Rounding left r just above the total, take the last unvisited Candidate
+    }
+
+    /*
+        * selectBestCity()
+        * @ desc : Selection of the unvisited City with the highest Choice Value, among the Candidates first
+        * @ return : The City to Visit Next
+    */
+    private int selectBestCity() {
+        City city = Acotsp.cities[currCity];
+        int best = -1;
+        double bestChoice = 0.0;
+        for (int i = 0; i < city.candidates.length; i++) {
+            int c = city.candidates[i];
+            if (!isVisited(c) && city.candidateChoice(i) > bestChoice) {
+                bestChoice = city.candidateChoice(i);
+                best = c;
+            }
         }
-        if(Acotsp.debug == 1) {
-            System.out.println( "[" + Acotsp.rank + "]DEBUG :: Ant[" + antIndex + "]: Not supposed to get here" );
-            System.out.println( "[" + Acotsp.rank + "]DEBUG :: Current City = " + currCity );
-            int i = 0; int j = 0;
-            while(i < visitCount && j < ncities){
-                System.out.println( "[" + Acotsp.rank + "]DEBUG :: tour[" + i + "] = " + tour[i] );
-                System.out.println( "[" + Acotsp.rank + "]DEBUG :: visited[" + j + "] = " + visited[j] );
+        if (best >= 0)
+            return best;
+        if (Acotsp.CHOICE.sparse)
+            return selectNearestCity();
+        best = unvisited[0];
+        for (int i = 0; i < remaining; i++) {
+            if (city.choiceInfo(unvisited[i]) > bestChoice) {
+                bestChoice = city.choiceInfo(unvisited[i]);
+                best = unvisited[i];
             }
         }
-        throw new RuntimeException("Ant[" + antIndex + "]: Not supposed to get here" );
+        return best;
     }
 
     /*
-        * selectNthCity()
-        * @ desc : Selection of the nth Unvisited City
-        * @ param : Nth City Index
-        * @ return : The nth City or -1 if none is found
+        * selectNearestCity()
+        * @ desc : Selection of the nearest unvisited City, the Distances are computed on demand
+        * @ return : The City to Visit Next or -1 if every City is visited
     */
-    private int selectNthCity(int nCity) {
-        int unvisitedCount = -1;
-        for (int i = 0; i < ncities; i++) {
-            if (!visited[i])
-                unvisitedCount++;           // * Incrementing Unvisited Count
-            if (unvisitedCount == nCity)    // * Returning the index when the Unvisited City count equals the nth index
-                return i;
+    private int selectNearestCity() {
+        City city = Acotsp.cities[currCity];
+        int nearest = -1;
+        double nearestDist = Double.MAX_VALUE;
+        for (int i = 0; i < remaining; i++) {
+            double d = city.distance(unvisited[i]);
+            if (d < nearestDist) {
+                nearestDist = d;
+                nearest = unvisited[i];
+            }
         }
-        return -1;
+        return nearest;
     }
 
     /*
         * edgeSelProb()
-        * @ desc : Initialize the Probabilities of visiting the n=Neighbor Cities
+        * @ desc : Initialize the Cumulative Choice Values of the unvisited Cities, in the order of the unvisited Collection
+        * The weights depend on the Current City, so they are rebuilt every step, but only over the remaining Cities
+        * @ return : The sum of the Choice Values, the Denominator of the Probabilities
     */
-    private void edgeSelProb() {
-        double[] distances = (Acotsp.cities[currCity]).distances;   // * Fetching the Distance of the Neighboring Cities
-        double[] pherTrails = (Acotsp.cities[currCity]).pheromones; // * Fetching the Pheromone Trails of the Neighboring Cities
+    private double edgeSelProb() {
+        Matrix choice = Acotsp.CHOICE;
 
-        // * Calculating the Denominator for calculation of teh Probabilities
-        double denominator = 0.0;
-        for (int i = 0; i < ncities; i++)
-            if (!visited[i])
-                denominator += pow(pherTrails[i], Parameters.alpha) * pow(1.0 / distances[i], Parameters.beta);
+        // * A dense double Row is one contiguous slice of the backing array, handled by the array kernels
+        if (!choice.single && !choice.packed && !choice.sparse) {
+            double row[] = (double[]) choice.buffer();
+            int offset = choice.rowOffset(currCity);
+            return Acotsp.kernel.prefixSums(row, offset, unvisited, remaining, probCity);
+        }
 
-        // * Probability Calculation and updating the Probability Collection
-        for (int j = 0; j < ncities; j++) {
-            if (visited[j]) {
-                probCity[j] = 0.0;
-            } else {
-                probCity[j] = (pow(pherTrails[j], Parameters.alpha) * pow(1.0 / distances[j], Parameters.beta)) / denominator;
-            }
+        City city = Acotsp.cities[currCity];    // * Fetching the Current City holding the Choice Values of its Neighbors
+        double total = 0.0;
+        for (int i = 0; i < remaining; i++) {
+            total += city.choiceInfo(unvisited[i]);
+            probCity[i] = total;
         }
+        return total;
+    }
+
+    /*
+        * prefixSums()
+        * @ desc : Scalar Probability kernel, running sums of the Choice Values of the given Cities of a dense Row
+        * @ param : The backing array of the Choice Matrix, the Offset of the Row,
+        *           the unvisited Cities, their count and the array receiving the running sums
+        * @ return : The sum of the Choice Values
+    */
+    static double prefixSums(double choice[], int offset, int cities[], int count, double prefix[]) {
+        double total = 0.0;
+        for (int i = 0; i < count; i++) {
+            total += choice[offset + cities[i]];
+            prefix[i] = total;
+        }
+        return total;
+    }
+
+    /*
+        * random()
+        * @ desc : The random number stream of the Ant, saved and restored by the Checkpoints
+    */
+    Rng random() {
+        return rand;
+    }
+
+    /*
+        * order()
+        * @ desc : The unvisited Collection, saved and restored by the Checkpoints
+        * Its order carries over from one Tour to the next and decides the random and the full scan choices
+    */
+    int[] order() {
+        return unvisited;
+    }
+
+    /*
+        * restoreOrder()
+        * @ desc : Continue from an unvisited Collection returned by order()
+        * @ param : The array holding the Collection and the Offset of its first City
+    */
+    void restoreOrder(int order[], int offset) {
+        for (int i = 0; i < ncities; i++) {
+            unvisited[i] = order[offset + i];
+            slot[unvisited[i]] = i;
+        }
+    }
+
+    /*
+        * isVisited()
+        * @ desc : Check if a City was visited, in O(1)
+    */
+    private boolean isVisited(int city) {
+        return slot[city] >= remaining;
+    }
+
+    /*
+        * markVisited()
+        * @ desc : Remove a City from the unvisited Collection by swapping it with the last unvisited City
+    */
+    private void markVisited(int city) {
+        int i = slot[city];
+        int last = unvisited[--remaining];
+        unvisited[i] = last;
+        slot[last] = i;
+        unvisited[remaining] = city;
+        slot[city] = remaining;
     }
 
     /*
@@ -158,13 +351,12 @@ public class Ant {
         // * Checking for if the ant in enroute to traverse all cities and has not completed it
         if (visitCount < ncities) {
             tour[visitCount++] = city;          // * Write selected city in the Ant's Tour
-            visited[city] = true;               // * Check the visited flag of the selected City
+            markVisited(city);                  // * Remove the selected City from the unvisited Collection
         }
 
         // * Checking for if the Ant has left the source City
         if (visitCount > 0) {
-            double[] distances = (Acotsp.cities[currCity]).distances;
-            tripDist += distances[city];        // * Update the Traversed Distance
+            tripDist += (Acotsp.cities[currCity]).distance(city);   // * Update the Traversed Distance
         }
 
         currCity = city;                        // * Updating the Current City for the Ant
@@ -172,24 +364,22 @@ public class Ant {
 
     /*
         * updatePherTrails()
-        * @ desc : Update the Pheromone Trails for the ant
+        * @ desc : Update the Pheromone Trails along the whole Tour of the ant
     */
     public void updatePherTrails() {
         double contribution = Parameters.Q / tripDist;                          // * Compute the Contribution
-        double[] trails = (Acotsp.cities[currCity]).pheromones;                 // * Retrieve this City's Pheromone Trails
-        ++visitCount;
 
-        // * Put the Pheromone from the current to the Next City
-        trails[ ( visitCount == ncities ) ? tour[0] : tour[visitCount] ] += contribution;
+        // * Put the Pheromone on every Edge of the Tour, from each City to the Next one
+        Acotsp.depositTour(tour, 0, contribution);
     }
 
     /*
         * clearVisits()
-        * @desc : Clear Visited Array and reset tour distance
+        * @desc : Clear the Visits and reset tour distance
+        * The unvisited Collection always holds every City, so marking them all unvisited again is O(1)
     */
     public void clearVisits() {
-        for(int i = 0; i < ncities; i++)
-            visited[i] = false;
+        remaining = ncities;
         tripDist = 0.0;
     }
 
@@ -0,0 +1,65 @@
+/*
+    * AntColonySystem Class
+    * Ant Colony System : an Ant takes the best Edge outright with probability Parameters.acsQ0, every Edge it takes
+    * is pulled back toward tau0 so the next Ants try others, and only the best Tour so far evaporates and deposits.
+    * tau0 = Q / (n * L) with L the Distance of the greedy nearest-neighbour Tour. The evaporation factor is 1 - rho.
+    * The Ants update the Edges while they build, so Acotsp.iterate() moves them one step each in turn on one Thread,
+    * every Ant seeing the local updates of the Ants before it, as in the original rule.
+*/
+public class AntColonySystem implements PheromoneUpdate {
+    private final double tau0;
+    private int bestTour[];             // * Best Tour of this Node in the Simulation
+    private double bestDist = Double.MAX_VALUE;
+
+    public AntColonySystem() {
+        tau0 = Parameters.Q / (Acotsp.ncities * Acotsp.nearestNeighborLength());
+    }
+
+    public double initial() {
+        return tau0;
+    }
+
+    public boolean evaporate() {
+        return false;                   // * Only the Edges of the best Tour evaporate, in deposit()
+    }
+
+    public void deposit(int nlocal) {
+        Ant best = Acotsp.iterationBest();
+        if (best.tripDist < bestDist) {
+            if (bestTour == null)
+                bestTour = new int[Acotsp.ncities];
+            System.arraycopy(best.tour, 0, bestTour, 0, Acotsp.ncities);
+            bestDist = best.tripDist;
+        }
+
+        int n = Acotsp.ncities;
+        double amount = (1.0 - Parameters.rho) * Parameters.Q / bestDist;
+        for (int i = 0; i < n; i++) {
+            City city = Acotsp.cities[bestTour[i]];
+            int next = bestTour[(i + 1 == n) ? 0 : i + 1];
+            city.setPheromone(next, Parameters.rho * city.pheromone(next) + amount);
+        }
+    }
+
+    public int[] bestTour() {
+        return bestTour;
+    }
+
+    public double bestDist() {
+        return bestDist;
+    }
+
+    public void restore(int tour[], double dist, int iter, int improvement) {
+        bestTour = tour;
+        bestDist = dist;
+    }
+
+    public void localUpdate(int from, int to) {
+        City city = Acotsp.cities[from];
+        city.setPheromone(to, (1.0 - Parameters.acsXi) * city.pheromone(to) + Parameters.acsXi * tau0);
+    }
+
+    public double exploitation() {
+        return Parameters.acsQ0;
+    }
+}
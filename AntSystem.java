@@ -0,0 +1,25 @@
+/*
+    * AntSystem Class
+    * The original rule : every Edge evaporates and every Ant deposits Q / (its Distance) on its whole Tour
+*/
+public class AntSystem implements PheromoneUpdate {
+    public double initial() {
+        return Parameters.initPheromones;
+    }
+
+    public boolean evaporate() {
+        return Acotsp.evaporate();
+    }
+
+    public void deposit(int nlocal) {
+        // * One Ant after the other so the deposits never race
+        for (int k = 0; k < nlocal; k++)
+            Acotsp.ants[k].updatePherTrails();
+    }
+
+    public void localUpdate(int from, int to) {}
+
+    public double exploitation() {
+        return 0.0;
+    }
+}
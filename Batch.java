@@ -0,0 +1,330 @@
+import java.io.*;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    * Batch Class
+    * Solves the many instances of a Manifest in one run, paying for the JVM start, the JIT warm-up and the MPI start once.
+    * The root hands out the instances one at a time to the Nodes asking for work, so a Node stuck on a large instance
+    * never holds the others back, and appends every result to the results file as soon as it comes in.
+    * With a single Node the root solves the instances itself, otherwise it only dispatches.
+    *
+    * Manifest : one instance per line, blank lines and lines starting with # are skipped
+    *     <filename> <ncities> <#Iterations, 0 for Parameters.iterationsMax> [<Parameter>=<value> ...]
+    * The Parameters of a line only apply to that instance, e.g. "routes/r17.tsp 250 500 nants=20 localSearch=1"
+    *
+    * Results : one line per instance, in the order they finish
+    *     <job> <filename> <ncities> <distance> <ms> <rank> : <tour>
+    * The job is the index of the instance in the Manifest, a failed instance has the distance FAILED and no tour
+*/
+public final class Batch {
+    private static final int TAG_RESULT = 1;    // * Node to root : the result of the last job, or -1 for the first request
+    private static final int TAG_TOUR = 2;      // * Node to root : the Tour of that result
+    private static final int TAG_JOB = 3;       // * Root to Node : the next job, or -1 when there is none left
+
+    // * Parameters a job cannot set, they are read once at startup or need the Nodes to work together
+    private static final List<String> FIXED = Arrays.asList("nthreads", "threadRanks", "metricsFile", "checkpointFile",
+            "checkpointInterval", "resume", "clusterSize", "maxSims", "shareMode", "shareInterval", "timeBudget",
+            "stopAtTarget", "branchingFactor", "terminationInterval");
+
+    private static int antCities = -1;          // * # of Cities the Ants of this Node are sized for
+    private static int antCandidates = -1;      // * Candidate List length the Ants of this Node are sized for
+    private static ProbabilityKernel vector;    // * Outcome of the SIMD kernel check, run on the first job that can use it
+
+    private Batch() {}
+
+    /*
+        * Job Class
+        * One line of the Manifest
+    */
+    static final class Job {
+        final String file;
+        final int ncities;
+        final int niter;
+        final Field fields[];       // * Parameters set by the line
+        final Object values[];
+
+        Job(String file, int ncities, int niter, Field fields[], Object values[]) {
+            this.file = file;
+            this.ncities = ncities;
+            this.niter = niter;
+            this.fields = fields;
+            this.values = values;
+        }
+
+        /*
+            * sets()
+            * @ desc : Check if the line sets a Parameter
+        */
+        boolean sets(String name) {
+            for (Field f : fields)
+                if (f.getName().equals(name))
+                    return true;
+            return false;
+        }
+
+        /*
+            * apply()
+            * @ desc : Set the Parameters of the job
+            * @ return : Their previous values, for restore()
+        */
+        Object[] apply() throws IllegalAccessException {
+            Object saved[] = new Object[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                saved[i] = fields[i].get(null);
+                fields[i].set(null, values[i]);
+            }
+            return saved;
+        }
+
+        /*
+            * restore()
+            * @ desc : Set the Parameters back to the values they had before apply()
+        */
+        void restore(Object saved[]) throws IllegalAccessException {
+            for (int i = fields.length - 1; i >= 0; i--)
+                fields[i].set(null, saved[i]);
+        }
+    }
+
+    /*
+        * run()
+        * @ desc : Solve every instance of the Manifest, every Node reads the Manifest itself and gets job indexes only
+        * @ param : The Manifest, the results file written by the root and the Root Node
+    */
+    static void run(String manifest, String results, int root) {
+        List<Job> jobs;
+        try {
+            jobs = parse(manifest);
+        } catch (IOException e) {
+            System.err.println("[" + Acotsp.rank + "] " + e.getMessage());
+            System.exit(-1);
+            return;
+        }
+
+        long master = Acotsp.seed;
+        int nprocs = Acotsp.nprocs;
+        Acotsp.nprocs = 1;                  // * Every job is a Colony of one Node
+
+        if (Acotsp.rank == root) {
+            System.out.println("Manifest :: " + manifest + "\n# Processes :: " + nprocs + "\n# Jobs :: " + jobs.size()
+                                + "\nSeed :: " + master + "\n");
+            try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(results)))) {
+                out.println("# job filename ncities distance ms rank : tour");
+                out.flush();
+                if (nprocs == 1)
+                    solveAll(jobs, master, out);
+                else
+                    dispatch(jobs, nprocs, out);
+            } catch (IOException e) {
+                System.err.println("Cannot write " + results + " :: " + e.getMessage());
+                System.exit(-1);
+            }
+        }
+        else
+            work(jobs, master, root);
+
+        Acotsp.nprocs = nprocs;
+        Acotsp.seed = master;
+    }
+
+    /*
+        * parse()
+        * @ desc : Read the Manifest and check the Parameters set by its lines
+    */
+    static List<Job> parse(String manifest) throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(manifest))) {
+            String line;
+            int lineno = 0;
+            while ((line = in.readLine()) != null) {
+                lineno++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String words[] = line.split("\\s+");
+                try {
+                    if (words.length < 3)
+                        throw new IllegalArgumentException("expected <filename> <ncities> <#Iterations>");
+                    int ncities = Integer.parseInt(words[1]);
+                    int niter = Integer.parseInt(words[2]);
+                    Field fields[] = new Field[words.length - 3];
+                    Object values[] = new Object[words.length - 3];
+                    for (int i = 3; i < words.length; i++) {
+                        int eq = words[i].indexOf('=');
+                        if (eq < 0)
+                            throw new IllegalArgumentException("expected <Parameter>=<value>, got " + words[i]);
+                        String name = words[i].substring(0, eq);
+                        if (FIXED.contains(name))
+                            throw new IllegalArgumentException(name + " cannot be set per job");
+                        fields[i - 3] = Parameters.class.getField(name);
+                        values[i - 3] = value(fields[i - 3].getType(), words[i].substring(eq + 1));
+                    }
+                    jobs.add(new Job(words[0], ncities, (niter > 0) ? niter : Parameters.iterationsMax, fields, values));
+                } catch (NoSuchFieldException e) {
+                    throw new IOException(manifest + ":" + lineno + " :: no Parameter " + e.getMessage());
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(manifest + ":" + lineno + " :: " + e.getMessage());
+                }
+            }
+        }
+        return jobs;
+    }
+
+    /*
+        * value()
+        * @ desc : Parse the value of a Parameter for its type
+    */
+    private static Object value(Class<?> type, String text) {
+        if (type == int.class) return Integer.parseInt(text);
+        if (type == long.class) return Long.parseLong(text);
+        if (type == double.class) return Double.parseDouble(text);
+        if (type == boolean.class) return Boolean.parseBoolean(text);
+        return text;
+    }
+
+    /*
+        * solveAll()
+        * @ desc : Solve every job on the root, when it is the only Node
+    */
+    private static void solveAll(List<Job> jobs, long master, PrintWriter out) {
+        for (int j = 0; j < jobs.size(); j++) {
+            int tour[] = new int[jobs.get(j).ncities];
+            long start = System.currentTimeMillis();
+            double dist = solve(jobs.get(j), j, master, tour);
+            report(out, j, jobs.get(j), dist, System.currentTimeMillis() - start, Acotsp.rank, tour);
+        }
+    }
+
+    /*
+        * dispatch()
+        * @ desc : Root side of the work queue, answer every request with the next job until there is none left
+        * A request carries the result of the job the Node just finished, so one round trip per job is all it costs
+    */
+    private static void dispatch(List<Job> jobs, int nprocs, PrintWriter out) {
+        double result[] = new double[3];    // * Job, Distance (NaN when it failed) and time in ms
+        int next[] = new int[1];
+        int nextJob = 0;
+        int working = nprocs - 1;
+        while (working > 0) {
+            int source = Acotsp.comm.recv(result, 0, 3, Comm.ANY_SOURCE, TAG_RESULT);
+            int job = (int) result[0];
+            if (job >= 0) {
+                Job done = jobs.get(job);
+                int tour[] = new int[done.ncities];
+                if (!Double.isNaN(result[1]))
+                    Acotsp.comm.recv(tour, 0, done.ncities, source, TAG_TOUR);
+                report(out, job, done, result[1], (long) result[2], source, tour);
+            }
+            next[0] = (nextJob < jobs.size()) ? nextJob++ : -1;
+            if (next[0] < 0)
+                working--;
+            Acotsp.comm.send(next, 0, 1, source, TAG_JOB);
+        }
+    }
+
+    /*
+        * work()
+        * @ desc : Node side of the work queue, ask for a job, solve it and send it back with the next request
+    */
+    private static void work(List<Job> jobs, long master, int root) {
+        double result[] = { -1, 0, 0 };
+        int next[] = new int[1];
+        int tour[] = new int[0];
+        while (true) {
+            Acotsp.comm.send(result, 0, 3, root, TAG_RESULT);
+            if (result[0] >= 0 && !Double.isNaN(result[1]))
+                Acotsp.comm.send(tour, 0, tour.length, root, TAG_TOUR);
+            Acotsp.comm.recv(next, 0, 1, root, TAG_JOB);
+            if (next[0] < 0)
+                return;
+
+            Job job = jobs.get(next[0]);
+            if (tour.length != job.ncities)
+                tour = new int[job.ncities];
+            long start = System.currentTimeMillis();
+            result[1] = solve(job, next[0], master, tour);
+            result[2] = System.currentTimeMillis() - start;
+            result[0] = next[0];
+        }
+    }
+
+    /*
+        * solve()
+        * @ desc : Read one instance and run a Colony on it alone, reusing the Ants of the previous job when they fit
+        * The job's seed only depends on the master seed and its index, so a result does not depend on the Node
+        * @ param : The job, its index, the master seed and the array receiving the best Tour
+        * @ return : The Distance of the best Tour, NaN when the instance could not be solved
+    */
+    private static double solve(Job job, int index, long master, int tour[]) {
+        Object saved[] = null;
+        try {
+            saved = job.apply();
+            Acotsp.ncities = job.ncities;
+            if (Acotsp.isTsplib(job.file)) {
+                if (Parameters.ncandidates <= 0)
+                    throw new IOException("Coordinate input needs Candidate Lists, set ncandidates > 0");
+                Acotsp.COORDS = new Coordinates(job.ncities, Coordinates.EUC_2D);
+                Acotsp.GRAPH = null;
+            } else {
+                Acotsp.COORDS = null;
+                Acotsp.GRAPH = new Matrix(job.ncities, Parameters.singlePrecision, Parameters.packedGraph);
+            }
+            new Acotsp().readFile(job.file);
+            Acotsp.seed = job.sets("seed") ? Parameters.seed : Rng.mix(master + index);
+            Acotsp.buildMatrices();
+
+            Matrix choice = Acotsp.CHOICE;
+            Acotsp.kernel = ProbabilityKernel.SCALAR;
+            if (Parameters.vectorKernel && !choice.single && !choice.packed && !choice.sparse) {
+                if (vector == null)
+                    vector = Acotsp.loadVectorKernel();
+                Acotsp.kernel = vector;
+            }
+
+            // * The Ants keep their arrays from one job to the next, only their random streams start over
+            if (Acotsp.ants == null || Acotsp.ants.length != Parameters.nants || antCities != job.ncities
+                    || antCandidates != Parameters.ncandidates)
+                Acotsp.ants = null;
+            Acotsp.init();
+            antCities = job.ncities;
+            antCandidates = Parameters.ncandidates;
+            for (int k = 0; k < Parameters.nants; k++)
+                Acotsp.ants[k].reseed(Rng.streamSeed(Acotsp.seed, 0, k));
+
+            return Acotsp.runColony(job.niter, tour);
+        } catch (IOException | IllegalAccessException | RuntimeException e) {
+            System.err.println("[" + Acotsp.rank + "] Job " + index + " (" + job.file + ") failed :: " + e);
+            return Double.NaN;
+        } finally {
+            if (saved != null) {
+                try {
+                    job.restore(saved);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    /*
+        * report()
+        * @ desc : Append the result of a job to the results file, flushed so it can be read while the batch runs
+    */
+    private static void report(PrintWriter out, int index, Job job, double dist, long ms, int source, int tour[]) {
+        StringBuilder line = new StringBuilder();
+        line.append(index).append(' ').append(job.file).append(' ').append(job.ncities).append(' ');
+        if (Double.isNaN(dist))
+            line.append("FAILED ").append(ms).append(' ').append(source).append(" :");
+        else {
+            line.append(String.format("%.2f", dist)).append(' ').append(ms).append(' ').append(source).append(" :");
+            for (int c : tour)
+                line.append(' ').append(c);
+        }
+        out.println(line);
+        out.flush();
+        System.out.println("Job #" + index + " :: " + job.file + " :: " + (Double.isNaN(dist) ? "FAILED" : String.format("%.2f", dist)));
+    }
+}
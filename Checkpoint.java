@@ -0,0 +1,350 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+/*
+    * Checkpoint Class
+    * Periodic binary snapshot of the Colony of every Node, and resume of a run from the last one all the Nodes hold.
+    * The Iteration loop only copies the Pheromone Matrix into a snapshot buffer, a background Thread writes the file.
+    * Every Node keeps two generations, <prefix>.<rank>.0.ckpt and <prefix>.<rank>.1.ckpt, each written to a temporary
+    * file and moved into place, so a Node killed while writing still holds its previous generation.
+    * Layout : a header (magic, version, rank, # processes, # cities, Matrix flags, generation, Simulation, next Iteration,
+    * Iteration of the last improvement, # Ants, seed, pherScale, best Distance, Matrix length, then the update rule, its
+    * Iteration, its last improvement, a flag for its best Tour and that Tour's Distance) followed by the best Tour,
+    * the best Tour of the update rule, the two state longs of every Ant stream, the unvisited order of every Ant
+    * and the raw Pheromone entries, in little endian order
+*/
+public final class Checkpoint {
+    private static final int MAGIC = 0x41434f43;    // * "ACOC"
+    private static final int VERSION = 3;
+    private static final int HEADER = 14 * 4 + 3 * 8 + 3 * 8;
+    private static final int CHUNK = 1 << 23;       // * Bytes per write
+
+    static int sim;                     // * Simulation of the restored Checkpoint
+    static boolean restored;            // * Set between restore() and apply()
+    static long generation = -1;        // * Generation of the Checkpoint restored or written last
+
+    private static long written = -1;   // * Last generation fully written by this Node
+    private static Object snapshot;     // * Copy of the Pheromone Matrix, double[] or float[]
+    private static int snapTrip[];      // * Copy of the best Tour
+    private static long snapRng[];      // * Copy of the states of the Ant streams
+    private static int snapOrder[];     // * Copy of the unvisited orders of the Ants, one after the other
+    private static int snapIter;        // * Next Iteration of the copy
+    private static int snapImprovement; // * Iteration of the last improvement of the copy
+    private static double snapScale;    // * pherScale of the copy
+    private static double snapDist;     // * Best Distance of the copy
+    private static int snapRuleTour[];  // * Copy of the best Tour of the update rule, null if it has none
+    private static double snapRuleDist; // * Its Distance
+    private static int snapRuleIter;    // * Iteration count of the update rule
+    private static int snapRuleImprovement; // * Its Iteration of the last improvement
+    private static ExecutorService writer;  // * Background Thread writing the files
+    private static Future<?> pending;   // * Write in progress
+
+    private Checkpoint() {}
+
+    /*
+        * enabled()
+        * @ desc : Check if Checkpoints are written or read
+    */
+    static boolean enabled() {
+        return Parameters.checkpointFile != null;
+    }
+
+    /*
+        * due()
+        * @ desc : Check if a Checkpoint is due after an Iteration
+        * @ param : The Iteration just finished
+    */
+    static boolean due(int iter) {
+        return enabled() && Parameters.checkpointInterval > 0 && (iter + 1) % Parameters.checkpointInterval == 0;
+    }
+
+    private static Path file(int rank, long gen) {
+        return Paths.get(Parameters.checkpointFile + "." + rank + "." + (gen & 1) + ".ckpt");
+    }
+
+    private static int flags(Matrix m) {
+        return (m.single ? 1 : 0) | (m.packed ? 2 : 0) | (m.sparse ? 4 : 0);
+    }
+
+    /*
+        * save()
+        * @ desc : Snapshot the Colony of this Node and hand it to the background writer
+        * All the Nodes agree on the generation with a MIN Allreduce of the last one they fully wrote,
+        * so no Node overwrites a generation another Node still lacks the successor of
+        * @ param : The Simulation, the Iteration just finished, the best Tour of this Node and its Distance
+    */
+    static void save(int simulation, int iter, int bestTrip[], double bestDist, int lastImprovement) {
+        finishWrite();
+        long done[] = { written };
+        long agreed[] = new long[1];
+        Acotsp.comm.allreduce(done, 0, agreed, 0, 1, Comm.MIN);
+        long gen = agreed[0] + 1;
+
+        // * Copying the state, the Iterations go on while the copy is written
+        Matrix pheromones = Acotsp.PHEROMONES;
+        if (snapshot == null) {
+            snapshot = pheromones.single ? (Object) new float[pheromones.length()] : (Object) new double[pheromones.length()];
+            snapTrip = new int[Acotsp.ncities];
+        }
+        System.arraycopy(pheromones.buffer(), 0, snapshot, 0, pheromones.length());
+        System.arraycopy(bestTrip, 0, snapTrip, 0, Acotsp.ncities);
+        int nants = Parameters.nants / Acotsp.nprocs;
+        snapRng = new long[2 * nants];
+        snapOrder = new int[nants * Acotsp.ncities];
+        for (int k = 0; k < nants; k++) {
+            System.arraycopy(Acotsp.ants[k].random().state(), 0, snapRng, 2 * k, 2);
+            System.arraycopy(Acotsp.ants[k].order(), 0, snapOrder, k * Acotsp.ncities, Acotsp.ncities);
+        }
+        snapIter = iter + 1;
+        snapImprovement = lastImprovement;
+        snapScale = Acotsp.pherScale;
+        snapDist = bestDist;
+        PheromoneUpdate update = Acotsp.update;
+        snapRuleTour = (update.bestTour() != null) ? update.bestTour().clone() : null;
+        snapRuleDist = update.bestDist();
+        snapRuleIter = update.iteration();
+        snapRuleImprovement = update.lastImprovement();
+
+        if (writer == null)
+            writer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "checkpoint-writer");
+                t.setDaemon(true);
+                return t;
+            });
+        int flags = flags(pheromones);
+        pending = writer.submit(() -> {
+            write(simulation, gen, flags);
+            return null;
+        });
+        generation = gen;
+    }
+
+    /*
+        * finishWrite()
+        * @ desc : Wait for the write in progress, a failed write only leaves the previous generation in place
+    */
+    static void finishWrite() {
+        if (pending == null)
+            return;
+        try {
+            pending.get();
+            written = generation;
+        } catch (ExecutionException e) {
+            System.err.println("[" + Acotsp.rank + "] Checkpoint " + generation + " not written : " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pending = null;
+    }
+
+    /*
+        * close()
+        * @ desc : Wait for the last write and stop the writer Thread
+    */
+    static void close() {
+        finishWrite();
+        if (writer != null)
+            writer.shutdown();
+    }
+
+    /*
+        * write()
+        * @ desc : Write the snapshot as a generation of this Node, on the writer Thread
+    */
+    private static void write(int simulation, long gen, int flags) throws IOException {
+        Path target = file(Acotsp.rank, gen);
+        Path temp = Paths.get(target + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            int length = (snapshot instanceof float[]) ? ((float[]) snapshot).length : ((double[]) snapshot).length;
+            buf.putInt(MAGIC).putInt(VERSION).putInt(Acotsp.rank).putInt(Acotsp.nprocs).putInt(Acotsp.ncities)
+               .putInt(flags).putLong(gen).putInt(simulation).putInt(snapIter).putInt(snapImprovement)
+               .putInt(snapRng.length / 2).putLong(Acotsp.seed).putDouble(snapScale).putDouble(snapDist)
+               .putLong(length).putInt(Parameters.pheromoneUpdate).putInt(snapRuleIter).putInt(snapRuleImprovement)
+               .putInt((snapRuleTour != null) ? 1 : 0).putDouble(snapRuleDist);
+            for (int i = 0; i < snapTrip.length; i++) {
+                flush(channel, buf, 4);
+                buf.putInt(snapTrip[i]);
+            }
+            for (int i = 0; i < snapTrip.length; i++) {
+                flush(channel, buf, 4);
+                buf.putInt((snapRuleTour != null) ? snapRuleTour[i] : 0);
+            }
+            for (int i = 0; i < snapRng.length; i++) {
+                flush(channel, buf, 8);
+                buf.putLong(snapRng[i]);
+            }
+            for (int i = 0; i < snapOrder.length; i++) {
+                flush(channel, buf, 4);
+                buf.putInt(snapOrder[i]);
+            }
+            if (snapshot instanceof float[])
+                GraphCache.writeFloats(channel, buf, (float[]) snapshot);
+            else
+                GraphCache.writeDoubles(channel, buf, (double[]) snapshot);
+            buf.flip();
+            while (buf.hasRemaining())
+                channel.write(buf);
+            channel.force(false);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buf, int bytes) throws IOException {
+        if (buf.remaining() >= bytes)
+            return;
+        buf.flip();
+        while (buf.hasRemaining())
+            channel.write(buf);
+        buf.clear();
+    }
+
+    /*
+        * header()
+        * @ desc : Read and check the header of a Checkpoint file against this run
+        * @ return : The header, null if the file is missing, partial or from another setup
+    */
+    private static ByteBuffer header(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header) >= 0);
+        header.flip();
+        Matrix pheromones = Acotsp.PHEROMONES;
+        if (header.remaining() < HEADER || header.getInt() != MAGIC || header.getInt() != VERSION
+                || header.getInt() != Acotsp.rank || header.getInt() != Acotsp.nprocs
+                || header.getInt() != Acotsp.ncities || header.getInt() != flags(pheromones))
+            return null;
+        long expected = HEADER + 8L * Acotsp.ncities + (16L + 4L * Acotsp.ncities) * header.getInt(44)
+                        + (long) (pheromones.single ? 4 : 8) * pheromones.length();
+        if (header.getLong(72) != pheromones.length() || channel.size() != expected)
+            return null;
+        return header;
+    }
+
+    /*
+        * latest()
+        * @ desc : The newest valid generation of this Node, -1 if it holds none
+    */
+    private static long latest() {
+        long best = -1;
+        for (int slot = 0; slot < 2; slot++) {
+            Path path = file(Acotsp.rank, slot);
+            if (!Files.exists(path))
+                continue;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer header = header(channel);
+                if (header != null)
+                    best = Math.max(best, header.getLong(24));
+            } catch (IOException e) {
+                // * An unreadable file is no Checkpoint
+            }
+        }
+        return best;
+    }
+
+    /*
+        * restore()
+        * @ desc : Load the newest generation every Node holds, the Nodes agree on it with a MIN Allreduce
+        * A Node may be one generation ahead, it then still holds the agreed one in its other file
+        * @ return : True if a Checkpoint was loaded, it is applied by apply() once the Simulation is initialised
+    */
+    static boolean restore() {
+        long local[] = { latest() };
+        long agreed[] = new long[1];
+        Acotsp.comm.allreduce(local, 0, agreed, 0, 1, Comm.MIN);
+        long gen = agreed[0];
+        if (gen < 0)
+            return false;
+
+        int ok[] = { 1 };
+        try (FileChannel channel = FileChannel.open(file(Acotsp.rank, gen), StandardOpenOption.READ)) {
+            ByteBuffer header = header(channel);
+            if (header == null || header.getLong(24) != gen)
+                throw new IOException("generation " + gen + " missing");
+            sim = header.getInt(32);
+            snapIter = header.getInt(36);
+            snapImprovement = header.getInt(40);
+            int nants = header.getInt(44);
+            Acotsp.seed = header.getLong(48);
+            snapScale = header.getDouble(56);
+            snapDist = header.getDouble(64);
+            if (nants != Parameters.nants / Acotsp.nprocs)
+                throw new IOException("written with " + nants + " Ants per Node");
+            if (header.getInt(80) != Parameters.pheromoneUpdate)
+                throw new IOException("written with pheromoneUpdate " + header.getInt(80));
+            snapRuleIter = header.getInt(84);
+            snapRuleImprovement = header.getInt(88);
+            boolean ruleTour = header.getInt(92) != 0;
+            snapRuleDist = header.getDouble(96);
+
+            // * The Tour and the Ants are small, the Pheromone entries are mapped window by window
+            int ncities = Acotsp.ncities;
+            ByteBuffer small = ByteBuffer.allocate(8 * ncities + (16 + 4 * ncities) * nants).order(ByteOrder.LITTLE_ENDIAN);
+            channel.position(HEADER);
+            while (small.hasRemaining() && channel.read(small) >= 0);
+            small.flip();
+            snapTrip = new int[ncities];
+            small.asIntBuffer().get(snapTrip);
+            small.position(4 * ncities);
+            snapRuleTour = null;
+            if (ruleTour) {
+                snapRuleTour = new int[ncities];
+                small.asIntBuffer().get(snapRuleTour);
+            }
+            small.position(8 * ncities);
+            snapRng = new long[2 * nants];
+            small.asLongBuffer().get(snapRng);
+            small.position(8 * ncities + 16 * nants);
+            snapOrder = new int[nants * ncities];
+            small.asIntBuffer().get(snapOrder);
+
+            Matrix pheromones = Acotsp.PHEROMONES;
+            long offset = HEADER + (8L + 4L * nants) * ncities + 16L * nants;
+            if (pheromones.single) {
+                snapshot = new float[pheromones.length()];
+                GraphCache.readFloats(channel, offset, (float[]) snapshot);
+            } else {
+                snapshot = new double[pheromones.length()];
+                GraphCache.readDoubles(channel, offset, (double[]) snapshot);
+            }
+        } catch (IOException e) {
+            System.err.println("[" + Acotsp.rank + "] Checkpoint " + gen + " unreadable : " + e.getMessage());
+            ok[0] = 0;
+        }
+
+        // * Resuming only if every Node loaded the same generation
+        int all[] = new int[1];
+        Acotsp.comm.allreduce(ok, 0, all, 0, 1, Comm.MIN);
+        if (all[0] == 0)
+            return false;
+        generation = gen;
+        written = gen;
+        restored = true;
+        return true;
+    }
+
+    /*
+        * apply()
+        * @ desc : Put the restored state into the freshly initialised Simulation
+        * @ param : The arrays of the best Tour and of its Distance
+        * @ return : The Iteration to go on from
+    */
+    static int apply(int bestTrip[], double bestTripDist[]) {
+        System.arraycopy(snapshot, 0, Acotsp.PHEROMONES.buffer(), 0, Acotsp.PHEROMONES.length());
+        Acotsp.pherScale = snapScale;
+        Acotsp.parallelFor(Acotsp.ncities, j -> Acotsp.cities[j].updateChoiceInfo());
+        System.arraycopy(snapTrip, 0, bestTrip, 0, Acotsp.ncities);
+        bestTripDist[0] = snapDist;
+        for (int k = 0; k < snapRng.length / 2; k++) {
+            Acotsp.ants[k].random().restore(new long[] { snapRng[2 * k], snapRng[2 * k + 1] });
+            Acotsp.ants[k].restoreOrder(snapOrder, k * Acotsp.ncities);
+        }
+        Termination.improved(snapImprovement);
+        Acotsp.update.restore(snapRuleTour, snapRuleDist, snapRuleIter, snapRuleImprovement);
+        restored = false;
+        return snapIter;
+    }
+}
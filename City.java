@@ -3,10 +3,12 @@ import java.util.*;
 
 /*
     * City Object Class
+    * The Distances, Pheromones and Choice Values live in the shared Matrices of the Driver Class,
+    * a City is the view of one of their Rows (of its Candidate Edges only for Coordinate input)
 */
 public class City {
-    public double distances[];      // * Collection of Distances of the Neighboring Vertices/Cities form the current City
-    public double pheromones[];     // * Collection of Pheromones of the Neighboring Vertices/Cities form the current City
+    public int index;               // * Index of the City in the Matrices
+    public int candidates[];        // * Collection of the Nearest Neighbor Cities, closest first
     private static int ncities;     // * Total Number of Cities/Vertices
 
     public City() {}
@@ -14,24 +16,152 @@ public class City {
     /*
         * City()
         * @ desc : Initializa the City
-        * @ param : The collection of the neighboring vertex distances of the current city
+        * @ param : The index of the current city
+        *           The candidate list of the nearest neighbors of the current city
     */
-    public City(double graph[]) {
+    public City(int indx, int neighbors[]) {
         super();
-        distances = graph;          // * Initializing the Neighbor Distances
+        index = indx;               // * Initializing the Row of the City
+        candidates = neighbors;     // * Initializing the Nearest Neighbor Candidate List
         ncities = Acotsp.ncities;   // * Fetching Number of Cities from the Driver Class
 
         reset();                    // * Reset the Pheromone Concentrations for the Current City Neighbors
     }
 
+    /*
+        * distance()
+        * @ desc : Distance from the current City to a Neighboring City, as the Tour pays it (see Acotsp.cost())
+    */
+    public double distance(int city) {
+        return Acotsp.cost(index, city);
+    }
+
+    /*
+        * choiceInfo()
+        * @ desc : Choice Value pheromone^alpha * (1/distance)^beta of the Edge to a Neighboring City
+    */
+    public double choiceInfo(int city) {
+        return Acotsp.CHOICE.get(index, city);
+    }
+
+    /*
+        * candidateChoice()
+        * @ desc : Choice Value of the Edge to the Candidate at a position of the Candidate List
+        * A sparse Row stores the Candidate Edges in the order of the List, so the Entry is read without a search
+    */
+    public double candidateChoice(int p) {
+        Matrix choice = Acotsp.CHOICE;
+        if (choice.sparse)
+            return choice.at(choice.rowOffset(index) + p);
+        return choice.get(index, candidates[p]);
+    }
+
+    /*
+        * deposit()
+        * @ desc : Add Pheromone on the Edge to a Neighboring City
+        * With lazy Evaporation the stored value is scaled by the global factor and its Choice Value is refreshed at once
+    */
+    public void deposit(int city, double amount) {
+        if (!Parameters.lazyEvaporation) {
+            Acotsp.PHEROMONES.add(index, city, amount);
+            return;
+        }
+
+        int k = Acotsp.PHEROMONES.index(index, city);
+        if (k < 0)
+            return;
+        Matrix pheromones = Acotsp.PHEROMONES;
+        pheromones.put(k, pheromones.at(k) + amount / Acotsp.pherScale);
+        refreshChoice(k);
+    }
+
+    /*
+        * pheromone()
+        * @ desc : True Pheromone Concentration of the Edge to a Neighboring City, 0 if it is not stored
+    */
+    public double pheromone(int city) {
+        return Acotsp.PHEROMONES.get(index, city) * Acotsp.pherScale;
+    }
+
+    /*
+        * setPheromone()
+        * @ desc : Set the true Pheromone Concentration of the Edge to a Neighboring City and refresh its Choice Value
+    */
+    public void setPheromone(int city, double tau) {
+        int k = Acotsp.PHEROMONES.index(index, city);
+        if (k < 0)
+            return;
+        Acotsp.PHEROMONES.put(k, tau / Acotsp.pherScale);
+        refreshChoice(k);
+    }
+
+    /*
+        * refreshChoice()
+        * @ desc : Refresh the Choice Value of one Entry after its Pheromone changed
+    */
+    private static void refreshChoice(int k) {
+        double stored = Acotsp.PHEROMONES.at(k);
+        double tau = (Parameters.alpha == 1.0) ? stored : Math.pow(stored, Parameters.alpha);
+        Acotsp.CHOICE.put(k, tau * Acotsp.HEURISTIC.at(k));
+    }
+
     /*
         * reset()
-        * @ desc : Reset the Pheromone Concentrations
+        * @ desc : Reset the Pheromone Concentrations to the initial value of the update rule
     */
     public void reset() {
-        pheromones = new double[ncities];
-        for(int i = 0; i < ncities; i++)
-                pheromones[i] = Parameters.initPheromones;
+        reset(Acotsp.update.initial());
+    }
+
+    /*
+        * reset()
+        * @ desc : Reset the Pheromone Concentrations to a true value
+    */
+    public void reset(double tau) {
+        Matrix pheromones = Acotsp.PHEROMONES;
+        int from = pheromones.rowOffset(index);
+        int to = from + pheromones.rowLength(index);
+        for(int k = from; k < to; k++)
+                pheromones.put(k, tau / Acotsp.pherScale);
+
+        updateChoiceInfo();
+    }
+
+    /*
+        * clampPheromones()
+        * @ desc : Bring the stored Pheromones of the Row back within [lo, hi], refreshing only the Entries that moved
+    */
+    public void clampPheromones(double lo, double hi) {
+        Matrix pheromones = Acotsp.PHEROMONES;
+        int from = pheromones.rowOffset(index);
+        int to = from + pheromones.rowLength(index);
+        for (int k = from; k < to; k++) {
+            double stored = pheromones.at(k);
+            if (stored < lo || stored > hi) {
+                pheromones.put(k, (stored < lo) ? lo : hi);
+                refreshChoice(k);
+            }
+        }
+    }
+
+    /*
+        * updateChoiceInfo()
+        * @ desc : Refresh the Choice Values after the Pheromone Concentrations have changed
+        * The Ants only read the Choice Values, so Math.pow() runs once per Edge per Iteration instead of on every step
+    */
+    public void updateChoiceInfo() {
+        Matrix pheromones = Acotsp.PHEROMONES;
+        Matrix heuristic = Acotsp.HEURISTIC;
+        Matrix choice = Acotsp.CHOICE;
+        int from = pheromones.rowOffset(index);
+        int to = from + pheromones.rowLength(index);
+        if (Parameters.alpha == 1.0) {
+            for (int k = from; k < to; k++)
+                choice.put(k, pheromones.at(k) * heuristic.at(k));
+        } else {
+            for (int k = from; k < to; k++)
+                choice.put(k, Math.pow(pheromones.at(k), Parameters.alpha) * heuristic.at(k));
+        }
     }
 
     /*
@@ -39,7 +169,18 @@ public class City {
         * @ desc : Calculation of the Pheromone Evaporation
     */
     public void evaporatePhermones() {
-        for (int i = 0; i < pheromones.length; i++)
-            pheromones[i] *= Parameters.rho;
+        scalePheromones(Parameters.rho);
+    }
+
+    /*
+        * scalePheromones()
+        * @ desc : Multiply the Pheromone Concentrations by a factor
+    */
+    public void scalePheromones(double factor) {
+        Matrix pheromones = Acotsp.PHEROMONES;
+        int from = pheromones.rowOffset(index);
+        int to = from + pheromones.rowLength(index);
+        for (int k = from; k < to; k++)
+            pheromones.put(k, pheromones.at(k) * factor);
     }
-}
\ No newline at end of file
+}
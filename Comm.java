@@ -0,0 +1,120 @@
+/*
+    * Comm Interface
+    * The collectives the Driver needs from its communication backend. MpiComm runs every rank as an MPI process,
+    * ThreadComm runs them as Threads of one JVM. The buffers are primitive arrays (int[], long[], float[], double[]),
+    * their element type is taken from the array, and the send and receive buffers of a call must be different arrays.
+    * Every rank calls every method in the same order, as with MPI collectives.
+*/
+public interface Comm {
+    // * Reduction Operations
+    int SUM = 0;
+    int MIN = 1;
+    int MAX = 2;
+
+    int ANY_SOURCE = -1;                // * Source of a recv() matching a message from any rank
+
+    /*
+        * mpi()
+        * @ desc : Start the MPI backend, loaded by name so that the sources build without the mpiJava jar
+        * when only ThreadComm is used
+        * @ param : The Arguments of the program
+        * @ return : The MpiComm of this process
+    */
+    static Comm mpi(String args[]) {
+        try {
+            return (Comm) Class.forName("MpiComm").getConstructor(String[].class).newInstance((Object) args);
+        } catch (java.lang.reflect.InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("MPI initialisation failed", e.getCause());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("MPI backend not available (MpiComm needs the mpiJava jar), "
+                                            + "set Parameters.threadRanks to run the ranks as Threads", e);
+        }
+    }
+
+    /*
+        * rank()
+        * @ desc : Rank of this process, 0 to size() - 1
+    */
+    int rank();
+
+    /*
+        * size()
+        * @ desc : Number of ranks
+    */
+    int size();
+
+    /*
+        * bcast()
+        * @ desc : Copy count elements of the root's buffer into the buffers of the other ranks
+    */
+    void bcast(Object buf, int offset, int count, int root);
+
+    /*
+        * share()
+        * @ desc : Hand a read-only array of the root to every rank, the caller must not write it afterwards
+        * In-process ranks all get the root's own array, without copying it. MPI ranks broadcast it into their buffer
+        * @ param : The buffer of this rank and the root
+        * @ return : The array to use from now on
+    */
+    Object share(Object buf, int root);
+
+    /*
+        * reduce()
+        * @ desc : Combine count elements of every rank with SUM, MIN or MAX into the receive buffer of the root
+    */
+    void reduce(Object sendbuf, int sendoffset, Object recvbuf, int recvoffset, int count, int op, int root);
+
+    /*
+        * allreduce()
+        * @ desc : Combine count elements of every rank with SUM, MIN or MAX into the receive buffers of all the ranks
+    */
+    void allreduce(Object sendbuf, int sendoffset, Object recvbuf, int recvoffset, int count, int op);
+
+    /*
+        * allreduceMinloc()
+        * @ desc : MINLOC over count (value, index) pairs, the lowest index wins a tie
+    */
+    void allreduceMinloc(double sendbuf[], int sendoffset, double recvbuf[], int recvoffset, int count);
+
+    /*
+        * allgather()
+        * @ desc : Gather count elements of every rank into the receive buffers of all the ranks, in rank order
+    */
+    void allgather(Object sendbuf, int sendoffset, int count, Object recvbuf, int recvoffset);
+
+    /*
+        * sendrecv()
+        * @ desc : Send count elements to one rank and receive count elements from another, at the same time
+        * Every rank takes part in the same exchange, as in a ring shift
+    */
+    void sendrecv(Object sendbuf, int sendoffset, int count, int dest,
+                  Object recvbuf, int recvoffset, int source, int tag);
+
+    /*
+        * send()
+        * @ desc : Send count elements to one rank, the only call of this interface not made by every rank
+        * It may return before the message is received, the buffer can be reused right away
+    */
+    void send(Object buf, int offset, int count, int dest, int tag);
+
+    /*
+        * recv()
+        * @ desc : Wait for a message with this tag from one rank, or from any rank with ANY_SOURCE
+        * @ return : The rank that sent it
+    */
+    int recv(Object buf, int offset, int count, int source, int tag);
+
+    /*
+        * barrier()
+        * @ desc : Wait for all the ranks
+    */
+    void barrier();
+
+    /*
+        * finish()
+        * @ desc : Shut the backend down, last call of every rank
+    */
+    void finish();
+}
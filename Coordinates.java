@@ -0,0 +1,228 @@
+import java.io.*;
+import java.util.*;
+
+/*
+    * Coordinates Object Class
+    * City positions of a TSPLIB instance, the Distances are computed on demand from them
+*/
+public class Coordinates {
+    // * TSPLIB Edge Weight Types
+    public static final int EUC_2D = 0;
+    public static final int CEIL_2D = 1;
+    public static final int GEO = 2;
+    public static final int ATT = 3;
+
+    public int type;                // * Edge Weight Type
+    public double x[];              // * First Coordinate of every City (latitude in radians for GEO)
+    public double y[];              // * Second Coordinate of every City (longitude in radians for GEO)
+
+    /*
+        * Coordinates()
+        * @ desc : Allocate the Coordinates of the Cities
+        * @ param : The Number of Cities and the Edge Weight Type
+    */
+    public Coordinates(int ncities, int weightType) {
+        super();
+        type = weightType;
+        x = new double[ncities];
+        y = new double[ncities];
+    }
+
+    /*
+        * distance()
+        * @ desc : TSPLIB Distance between two Cities
+        * @ param : The two Cities
+    */
+    public double distance(int i, int j) {
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        switch (type) {
+            case CEIL_2D:
+                return Math.ceil(Math.sqrt(dx * dx + dy * dy));
+            case ATT: {
+                double r = Math.sqrt((dx * dx + dy * dy) / 10.0);
+                double t = (int) (r + 0.5);
+                return (t < r) ? t + 1 : t;
+            }
+            case GEO: {
+                double q1 = Math.cos(y[i] - y[j]);
+                double q2 = Math.cos(x[i] - x[j]);
+                double q3 = Math.cos(x[i] + x[j]);
+                return (int) (6378.388 * Math.acos(0.5 * ((1.0 + q1) * q2 - (1.0 - q1) * q3)) + 1.0);
+            }
+            default:
+                return (int) (Math.sqrt(dx * dx + dy * dy) + 0.5);
+        }
+    }
+
+    /*
+        * read()
+        * @ desc : Read the Coordinates from a TSPLIB file with a NODE_COORD_SECTION
+        * @ param : Name of the Input File
+    */
+    public void read(String file) throws IOException {
+        FastReader in = null;
+        try {
+            in = new FastReader(file);
+            String line;
+            // * Reading the Specification Part up to the Coordinates
+            while((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith("NODE_COORD_SECTION"))
+                    break;
+                int colon = line.indexOf(':');
+                if (colon < 0)
+                    continue;
+                String key = line.substring(0, colon).trim();
+                String value = line.substring(colon + 1).trim();
+                if (key.equals("DIMENSION") && Integer.parseInt(value) != x.length)
+                    throw new IOException(file + " has DIMENSION " + value + ", expected " + x.length);
+                if (key.equals("EDGE_WEIGHT_TYPE"))
+                    type = parseType(value);
+            }
+
+            // * Reading the Data Part, one "<id> <x> <y>" line per City
+            for(int i = 0; i < x.length; i++) {
+                if (in.skipWhitespace() < 0)
+                    throw new IOException(file + " ends after " + i + " of " + x.length + " coordinates");
+                int v = in.readInt() - 1;
+                x[v] = in.readDouble();
+                y[v] = in.readDouble();
+            }
+        } finally {
+            if(in!=null)
+                in.close();
+        }
+
+        if (type == GEO)
+            toRadians();
+    }
+
+    /*
+        * parseType()
+        * @ desc : Map a TSPLIB EDGE_WEIGHT_TYPE to its constant
+    */
+    private static int parseType(String value) throws IOException {
+        if (value.equals("EUC_2D")) return EUC_2D;
+        if (value.equals("CEIL_2D")) return CEIL_2D;
+        if (value.equals("GEO")) return GEO;
+        if (value.equals("ATT")) return ATT;
+        throw new IOException("Unsupported EDGE_WEIGHT_TYPE " + value);
+    }
+
+    /*
+        * toRadians()
+        * @ desc : Convert the TSPLIB DDD.MM latitudes and longitudes to radians
+    */
+    private void toRadians() {
+        for(int i = 0; i < x.length; i++) {
+            x[i] = geoRadians(x[i]);
+            y[i] = geoRadians(y[i]);
+        }
+    }
+
+    static double geoRadians(double v) {
+        int deg = (int) v;
+        double min = v - deg;
+        return 3.141592 * (deg + 5.0 * min / 3.0) / 180.0;
+    }
+
+    /*
+        * nearestNeighbors()
+        * @ desc : Compute the k Nearest Neighbors of every City, closest first
+        * The Cities are bucketed into a uniform grid and each search expands ring by ring around the City,
+        * so it costs about O(k) per City instead of O(n). GEO Distances are not planar and use a full scan.
+        * @ param : The Number of Neighbors
+        * @ return : The Candidate List of every City
+    */
+    public int[][] nearestNeighbors(int k) {
+        int n = x.length;
+        k = Math.max(0, Math.min(k, n - 1));
+        int lists[][] = new int[n][];
+        double dist[] = new double[k];
+
+        if (type == GEO) {
+            for(int i = 0; i < n; i++) {
+                int list[] = new int[k];
+                int size = 0;
+                for(int j = 0; j < n; j++)
+                    if (j != i)
+                        size = insert(list, dist, size, j, distance(i, j));
+                lists[i] = list;
+            }
+            return lists;
+        }
+
+        // * Bucketing the Cities into a grid of about 2 Cities per cell
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for(int i = 0; i < n; i++) {
+            minX = Math.min(minX, x[i]); maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]); maxY = Math.max(maxY, y[i]);
+        }
+        int side = Math.max(1, (int) Math.sqrt(n / 2.0));
+        double cell = Math.max(Math.max(maxX - minX, maxY - minY) / side, Double.MIN_NORMAL);
+        int cellOf[] = new int[n];
+        int start[] = new int[side * side + 1];
+        for(int i = 0; i < n; i++) {
+            int cx = Math.min(side - 1, (int) ((x[i] - minX) / cell));
+            int cy = Math.min(side - 1, (int) ((y[i] - minY) / cell));
+            cellOf[i] = cy * side + cx;
+            start[cellOf[i] + 1]++;
+        }
+        for(int c = 0; c < side * side; c++)
+            start[c + 1] += start[c];
+        int members[] = new int[n];
+        int fill[] = Arrays.copyOf(start, side * side);
+        for(int i = 0; i < n; i++)
+            members[fill[cellOf[i]]++] = i;
+
+        for(int i = 0; i < n; i++) {
+            int list[] = new int[k];
+            int size = 0;
+            int cx = cellOf[i] % side;
+            int cy = cellOf[i] / side;
+            for(int r = 0; r < side; r++) {
+                // * Scanning the cells on the border of the square of radius r
+                for(int gy = Math.max(0, cy - r); gy <= Math.min(side - 1, cy + r); gy++) {
+                    for(int gx = Math.max(0, cx - r); gx <= Math.min(side - 1, cx + r); gx++) {
+                        if (Math.abs(gx - cx) != r && Math.abs(gy - cy) != r)
+                            continue;
+                        int c = gy * side + gx;
+                        for(int m = start[c]; m < start[c + 1]; m++) {
+                            int j = members[m];
+                            if (j != i) {
+                                double dx = x[i] - x[j], dy = y[i] - y[j];
+                                size = insert(list, dist, size, j, Math.sqrt(dx * dx + dy * dy));
+                            }
+                        }
+                    }
+                }
+                // * Cities beyond the next ring are at least r cells away
+                if (size == k && dist[k-1] <= r * cell)
+                    break;
+            }
+            lists[i] = list;
+        }
+        return lists;
+    }
+
+    /*
+        * insert()
+        * @ desc : Insertion into a List sorted by distance, dropping the farthest entry when full
+        * @ return : The new size of the List
+    */
+    private static int insert(int list[], double dist[], int size, int city, double d) {
+        int k = list.length;
+        if (size == k && (k == 0 || d >= dist[k-1]))
+            return size;
+        int p = (size < k) ? size++ : k - 1;
+        while (p > 0 && dist[p-1] > d) {
+            list[p] = list[p-1];
+            dist[p] = dist[p-1];
+            p--;
+        }
+        list[p] = city;
+        dist[p] = d;
+        return size;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+    * Decomposition Class
+    * Solves a large Coordinate instance as many small ones. The Cities are split into spatial clusters by recursive
+    * bisection, every Node runs a Colony on its share of the clusters, reusing Ant and City on each one in turn,
+    * and the root chains the sub-Tours into one global Tour whose seams the Local Search then repairs.
+    * No Node ever holds more than the Coordinates and the Matrices of one cluster, so the size of the instance
+    * is bounded by the Coordinates and not by a Matrix over all the Cities.
+*/
+public final class Decomposition {
+    private static final int MIN_CLUSTER = 8;   // * Smallest cluster worth a Colony of its own
+
+    private Decomposition() {}
+
+    /*
+        * run()
+        * @ desc : Partition the instance held by Acotsp.COORDS, solve the clusters of this Node and build the Tour at the root
+        * Every Node computes the same partition from the shared Coordinates, so no cluster is ever sent
+        * @ param : The Number of Iterations per cluster and the Root Node
+    */
+    static void run(int niter, int root) {
+        Coordinates full = Acotsp.COORDS;
+        int n = Acotsp.ncities;
+        long master = Acotsp.seed;
+        int nprocs = Acotsp.nprocs;
+
+        // * Clusters are contiguous runs of perm, cluster c holding perm[start[c]] to perm[start[c + 1] - 1]
+        int perm[] = new int[n];
+        for (int i = 0; i < n; i++)
+            perm[i] = i;
+
+        // * A leaf holds at least half of the largest cluster, which bounds the Number of clusters
+        int size = Math.max(Parameters.clusterSize, MIN_CLUSTER);
+        int start[] = new int[2 * n / size + 2];
+        int nclusters = split(full, perm, 0, n, size, start, 0);
+        start[nclusters] = n;
+        if (Acotsp.rank == root)
+            System.out.println("# of Clusters :: " + nclusters + "\n");
+
+        // * Every Node solves the clusters c with c % nprocs == rank as a Colony of its own, alone
+        // * The other entries of tours stay 0, so a SUM reduction gathers all the sub-Tours at the root
+        int tours[] = new int[n];
+        Acotsp.nprocs = 1;
+        for (int c = Acotsp.rank; c < nclusters; c += nprocs)
+            solve(full, perm, start[c], start[c + 1], niter, Rng.mix(master + c), tours);
+        Acotsp.nprocs = nprocs;
+        Acotsp.COORDS = full;
+        Acotsp.ncities = n;
+        Acotsp.seed = master;
+
+        int merged[] = new int[n];
+        Acotsp.comm.reduce(tours, 0, merged, 0, n, Comm.SUM, root);
+        if (Acotsp.rank != root)
+            return;
+
+        // * Chaining the sub-Tours and repairing the seams with Local Search over the Candidate Lists of all the Cities
+        int trip[] = new int[n];
+        int seams[] = stitch(merged, start, nclusters, trip);
+        double stitched = Acotsp.tourLength(trip);
+        Acotsp.buildCandidateLists();
+        double dist = new LocalSearch(n).improve(trip, seams);
+
+        System.out.printf("Stitched Distance :: %.2f\n", stitched);
+        System.out.printf("Best Trip Distance :: %.2f\n", dist);
+        System.out.print("Best Trip :: ");
+        for (int i = 0; i < n; i++)
+            System.out.print(trip[i] + " ");
+        System.out.println();
+        System.out.println();
+    }
+
+    /*
+        * split()
+        * @ desc : Recursive bisection of perm[lo..hi) at the median of the longer side of its bounding box
+        * The leaves come out in depth-first order, so consecutive clusters are neighbours in the plane
+        * @ param : The Coordinates, the permutation, the range, the largest cluster, the cluster offsets and the next cluster
+        * @ return : The Number of clusters written so far
+    */
+    private static int split(Coordinates coords, int perm[], int lo, int hi, int size, int start[], int next) {
+        if (hi - lo <= size) {
+            start[next] = lo;
+            return next + 1;
+        }
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = lo; i < hi; i++) {
+            int c = perm[i];
+            minX = Math.min(minX, coords.x[c]);
+            maxX = Math.max(maxX, coords.x[c]);
+            minY = Math.min(minY, coords.y[c]);
+            maxY = Math.max(maxY, coords.y[c]);
+        }
+        double axis[] = (maxX - minX >= maxY - minY) ? coords.x : coords.y;
+        int mid = (lo + hi) >>> 1;
+        select(axis, perm, lo, hi - 1, mid);
+        next = split(coords, perm, lo, mid, size, start, next);
+        return split(coords, perm, mid, hi, size, start, next);
+    }
+
+    /*
+        * select()
+        * @ desc : Quickselect, move the k-th smallest value of perm[lo..hi] to k with the smaller ones before it
+    */
+    private static void select(double key[], int perm[], int lo, int hi, int k) {
+        while (lo < hi) {
+            double pivot = key[perm[(lo + hi) >>> 1]];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (key[perm[i]] < pivot) i++;
+                while (key[perm[j]] > pivot) j--;
+                if (i <= j) {
+                    int t = perm[i];
+                    perm[i++] = perm[j];
+                    perm[j--] = t;
+                }
+            }
+            if (k <= j)
+                hi = j;
+            else if (k >= i)
+                lo = i;
+            else
+                return;
+        }
+    }
+
+    /*
+        * solve()
+        * @ desc : Run a Colony on the cluster perm[lo..hi) and write its best Tour, in global City ids, to tours[lo..hi)
+        * The Driver's static state is pointed at the cluster for the time of the Colony
+        * @ param : The full Coordinates, the permutation, the cluster range, the Iterations, the seed and the output
+    */
+    private static void solve(Coordinates full, int perm[], int lo, int hi, int niter, long seed, int tours[]) {
+        int m = hi - lo;
+        if (m < 4) {
+            System.arraycopy(perm, lo, tours, lo, m);    // * Every order of 3 Cities is the same Tour
+            return;
+        }
+        Coordinates sub = new Coordinates(m, full.type);
+        for (int j = 0; j < m; j++) {
+            sub.x[j] = full.x[perm[lo + j]];
+            sub.y[j] = full.y[perm[lo + j]];
+        }
+        Acotsp.COORDS = sub;
+        Acotsp.ncities = m;
+        Acotsp.seed = seed;
+        Acotsp.ants = null;
+        Acotsp.buildMatrices();
+        Acotsp.init();
+        // * The Ant streams follow the cluster and not the Node solving it, so the Tour does not depend on the Number of Nodes
+        for (int k = 0; k < Parameters.nants; k++)
+            Acotsp.ants[k].reseed(Rng.streamSeed(seed, 0, k));
+
+        int best[] = new int[m];
+        Acotsp.runColony(niter, best);      // * A cluster needs no collective to stop, its Colony is local to this Node
+        for (int j = 0; j < m; j++)
+            tours[lo + j] = perm[lo + best[j]];
+    }
+
+    /*
+        * stitch()
+        * @ desc : Chain the cyclic sub-Tours into one Tour, in cluster order
+        * Each sub-Tour is entered at its City nearest to the end of the previous one and cut open next to it,
+        * on whichever of its two Edges is longer, so the walk leaves it by the other one
+        * @ param : The sub-Tours, the cluster offsets, the Number of clusters and the output Tour
+        * @ return : The Cities at the ends of every sub-Tour, where the Local Search has to look
+    */
+    private static int[] stitch(int tours[], int start[], int nclusters, int trip[]) {
+        int seams[] = new int[2 * nclusters];
+        int len = 0;
+        for (int c = 0; c < nclusters; c++) {
+            int lo = start[c];
+            int m = start[c + 1] - lo;
+            int s = 0, dir = 1;
+            if (len > 0) {
+                int prev = trip[len - 1];
+                for (int j = 1; j < m; j++)
+                    if (Acotsp.distance(prev, tours[lo + j]) < Acotsp.distance(prev, tours[lo + s]))
+                        s = j;
+                int city = tours[lo + s];
+                double back = Acotsp.distance(city, tours[lo + (s + m - 1) % m]);
+                double ahead = Acotsp.distance(city, tours[lo + (s + 1) % m]);
+                dir = (back >= ahead) ? 1 : -1;     // * Walking forward drops the Edge behind, backward the one ahead
+            }
+            seams[2 * c] = tours[lo + s];
+            for (int q = 0; q < m; q++)
+                trip[len++] = tours[lo + ((s + dir * q) % m + m) % m];
+            seams[2 * c + 1] = trip[len - 1];
+        }
+        return seams;
+    }
+}
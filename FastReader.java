@@ -0,0 +1,197 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/*
+    * FastReader Object Class
+    * Tokenizer over a memory-mapped Input File, numbers are parsed straight from the mapped bytes
+    * without creating a String per line or per token
+*/
+public class FastReader implements Closeable {
+    private static final int WINDOW = 1 << 28;     // * Size of the mapped window, files beyond 2 GB are mapped piecewise
+    private static final double POW10[] = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++)
+            POW10[i] = POW10[i-1] * 10.0;
+    }
+
+    private FileChannel channel;    // * Channel of the Input File
+    private long size;              // * Size of the Input File
+    private long base;              // * File offset of the current window
+    private MappedByteBuffer window;// * Currently mapped part of the File
+
+    /*
+        * FastReader()
+        * @ desc : Open and map the Input File
+        * @ param : Name of the Input File
+    */
+    public FastReader(String file) throws IOException {
+        super();
+        channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        size = channel.size();
+        map(0L);
+    }
+
+    private void map(long offset) throws IOException {
+        base = offset;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW, size - base));
+    }
+
+    /*
+        * peek()
+        * @ desc : The next byte without consuming it
+        * @ return : The byte, or -1 at the end of the File
+    */
+    public int peek() throws IOException {
+        if (!window.hasRemaining()) {
+            if (base + window.limit() >= size)
+                return -1;
+            map(base + window.limit());
+        }
+        return window.get(window.position()) & 0xFF;   // * Bytes above 0x7F, e.g. UTF-8 in a COMMENT line, are not the end
+    }
+
+    /*
+        * read()
+        * @ desc : Consume the next byte
+        * @ return : The byte, or -1 at the end of the File
+    */
+    public int read() throws IOException {
+        int c = peek();
+        if (c >= 0)
+            window.get();
+        return c;
+    }
+
+    /*
+        * skipSpaces()
+        * @ desc : Skip blanks and tabs, the line breaks are kept
+        * @ return : The next byte, or -1 at the end of the File
+    */
+    public int skipSpaces() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t')
+            window.get();
+        return c;
+    }
+
+    /*
+        * skipWhitespace()
+        * @ desc : Skip blanks, tabs and line breaks
+        * @ return : The next byte, or -1 at the end of the File
+    */
+    public int skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t' || c == '\n' || c == '\r')
+            window.get();
+        return c;
+    }
+
+    /*
+        * expect()
+        * @ desc : Consume a separator, after optional blanks
+    */
+    public void expect(char separator) throws IOException {
+        int c = skipSpaces();
+        if (c != separator)
+            throw new IOException("Expected '" + separator + "' but found " + describe(c) + " at byte " + (base + window.position()));
+        window.get();
+    }
+
+    /*
+        * readLine()
+        * @ desc : Read the rest of the current line, for the few header lines of a File
+        * @ return : The line without its line break, or null at the end of the File
+    */
+    public String readLine() throws IOException {
+        if (peek() < 0)
+            return null;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = read()) >= 0 && c != '\n')
+            if (c != '\r')
+                line.write(c);
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /*
+        * readInt()
+        * @ desc : Parse a decimal integer, after optional blanks
+    */
+    public int readInt() throws IOException {
+        int c = skipSpaces();
+        boolean negative = (c == '-');
+        if (c == '-' || c == '+')
+            window.get();
+        if ((c = peek()) < '0' || c > '9')
+            throw new IOException("Expected a number but found " + describe(c) + " at byte " + (base + window.position()));
+        int value = 0;
+        while ((c = peek()) >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            window.get();
+        }
+        return negative ? -value : value;
+    }
+
+    /*
+        * readDouble()
+        * @ desc : Parse a decimal number with optional fraction and exponent, after optional blanks
+        * Up to 18 significant digits are kept, which covers every Distance and Coordinate found in practice
+    */
+    public double readDouble() throws IOException {
+        int c = skipSpaces();
+        boolean negative = (c == '-');
+        if (c == '-' || c == '+')
+            window.get();
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        while ((c = peek()) >= '0' && c <= '9') {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) digits++;
+            } else
+                exponent++;
+            any = true;
+            window.get();
+        }
+        if (c == '.') {
+            window.get();
+            while ((c = peek()) >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                }
+                any = true;
+                window.get();
+            }
+        }
+        if (!any)
+            throw new IOException("Expected a number but found " + describe(c) + " at byte " + (base + window.position()));
+        if (c == 'e' || c == 'E') {
+            window.get();
+            exponent += readInt();
+        }
+
+        double value = mantissa;
+        if (exponent < 0)
+            value = (-exponent < POW10.length) ? value / POW10[-exponent] : value / Math.pow(10.0, -exponent);
+        else if (exponent > 0)
+            value = (exponent < POW10.length) ? value * POW10[exponent] : value * Math.pow(10.0, exponent);
+        return negative ? -value : value;
+    }
+
+    private static String describe(int c) {
+        return (c < 0) ? "end of file" : "'" + (char) c + "'";
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
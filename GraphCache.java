@@ -0,0 +1,160 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/*
+    * GraphCache Class
+    * Compact binary copy of a parsed Input File, so later runs on the same instance skip the parsing.
+    * Layout : a header of 6 ints (magic, version, # cities, kind, flags, edge weight type)
+    * followed by the raw Distance Matrix entries, or the x then y Coordinates, in little endian order
+*/
+public class GraphCache {
+    private static final int MAGIC = 0x41434f47;    // * "ACOG"
+    private static final int VERSION = 1;
+    private static final int HEADER = 6 * 4;
+    private static final int KIND_MATRIX = 0;
+    private static final int KIND_COORDS = 1;
+    private static final int CHUNK = 1 << 23;       // * Bytes per write
+    private static final long WINDOW = 1L << 30;    // * Bytes per mapped read window
+
+    /*
+        * cacheFile()
+        * @ desc : Name of the Cache File of an Input File
+    */
+    public static String cacheFile(String file) {
+        return file + ".acog";
+    }
+
+    /*
+        * load()
+        * @ desc : Load the Cache of an Input File into the Distance Matrix or the Coordinates of the Driver Class
+        * The Cache is used only if it is newer than the Input File and was written with the same storage layout
+        * @ param : Name of the Input File
+        * @ return : True if the Cache was loaded
+    */
+    public static boolean load(String file) throws IOException {
+        Path cache = Paths.get(cacheFile(file));
+        Path source = Paths.get(file);
+        if (!Files.exists(cache) || (Files.exists(source)
+                && Files.getLastModifiedTime(cache).compareTo(Files.getLastModifiedTime(source)) < 0))
+            return false;
+
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0);
+            header.flip();
+            if (header.remaining() < HEADER || header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getInt() != Acotsp.ncities)
+                return false;
+            int kind = header.getInt();
+            int flags = header.getInt();
+            int type = header.getInt();
+
+            // * A truncated or padded Cache is no Cache, the Input File is parsed again and the Cache rewritten
+            if (Acotsp.GRAPH != null) {
+                Matrix graph = Acotsp.GRAPH;
+                if (kind != KIND_MATRIX || flags != flags(graph)
+                        || channel.size() != HEADER + (long) (graph.single ? 4 : 8) * graph.length())
+                    return false;
+                if (graph.single)
+                    readFloats(channel, HEADER, (float[]) graph.buffer());
+                else
+                    readDoubles(channel, HEADER, (double[]) graph.buffer());
+            } else {
+                Coordinates coords = Acotsp.COORDS;
+                if (kind != KIND_COORDS || channel.size() != HEADER + 16L * coords.x.length)
+                    return false;
+                coords.type = type;
+                readDoubles(channel, HEADER, coords.x);
+                readDoubles(channel, HEADER + 8L * coords.x.length, coords.y);
+            }
+        }
+        return true;
+    }
+
+    /*
+        * save()
+        * @ desc : Write the Distance Matrix or the Coordinates of the Driver Class as the Cache of an Input File
+        * The Cache is written to a temporary file first, so a concurrent run never sees a partial one
+        * @ param : Name of the Input File
+    */
+    public static void save(String file) throws IOException {
+        Path cache = Paths.get(cacheFile(file));
+        Path temp = Paths.get(cacheFile(file) + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(Acotsp.ncities);
+            if (Acotsp.GRAPH != null) {
+                Matrix graph = Acotsp.GRAPH;
+                buf.putInt(KIND_MATRIX).putInt(flags(graph)).putInt(0);
+                if (graph.single)
+                    writeFloats(channel, buf, (float[]) graph.buffer());
+                else
+                    writeDoubles(channel, buf, (double[]) graph.buffer());
+            } else {
+                Coordinates coords = Acotsp.COORDS;
+                buf.putInt(KIND_COORDS).putInt(0).putInt(coords.type);
+                writeDoubles(channel, buf, coords.x);
+                writeDoubles(channel, buf, coords.y);
+            }
+            buf.flip();
+            while (buf.hasRemaining())
+                channel.write(buf);
+        }
+        Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int flags(Matrix m) {
+        return (m.single ? 1 : 0) | (m.packed ? 2 : 0);
+    }
+
+    static void writeDoubles(FileChannel channel, ByteBuffer buf, double values[]) throws IOException {
+        for (int i = 0; i < values.length; ) {
+            if (buf.remaining() < 8) {
+                buf.flip();
+                while (buf.hasRemaining())
+                    channel.write(buf);
+                buf.clear();
+            }
+            int count = Math.min(values.length - i, buf.remaining() / 8);
+            buf.asDoubleBuffer().put(values, i, count);
+            buf.position(buf.position() + count * 8);
+            i += count;
+        }
+    }
+
+    static void writeFloats(FileChannel channel, ByteBuffer buf, float values[]) throws IOException {
+        for (int i = 0; i < values.length; ) {
+            if (buf.remaining() < 4) {
+                buf.flip();
+                while (buf.hasRemaining())
+                    channel.write(buf);
+                buf.clear();
+            }
+            int count = Math.min(values.length - i, buf.remaining() / 4);
+            buf.asFloatBuffer().put(values, i, count);
+            buf.position(buf.position() + count * 4);
+            i += count;
+        }
+    }
+
+    static void readDoubles(FileChannel channel, long offset, double values[]) throws IOException {
+        for (int i = 0; i < values.length; ) {
+            int count = (int) Math.min(values.length - i, WINDOW / 8);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, offset + 8L * i, 8L * count);
+            map.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values, i, count);
+            i += count;
+        }
+    }
+
+    static void readFloats(FileChannel channel, long offset, float values[]) throws IOException {
+        for (int i = 0; i < values.length; ) {
+            int count = (int) Math.min(values.length - i, WINDOW / 4);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, offset + 4L * i, 4L * count);
+            map.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(values, i, count);
+            i += count;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+import java.io.*;
+
+/*
+    * Incremental Class
+    * Re-optimises a changing instance from what the Colony already learned instead of from scratch.
+    * The root reads the changes from a stream (a file, a named pipe or - for the standard input) and sends each batch
+    * to all the Nodes, which patch the Distances, the Candidate Lists and the Pheromones and go on from the best Tour.
+    *
+    * Stream : one change per line, Cities numbered from 1 as in the input files, blank lines and # comments skipped
+    *     d <i> <j> <distance>        set the Distance of the Edge i-j, 0 removes it (adjacency list input)
+    *     m <i> <x> <y>               move City i (Coordinate input)
+    *     a <x> <y>                   add a City (Coordinate input)
+    *     a <j>:<distance>,...        add a City with its Edges (adjacency list input)
+    *     r <i>                       remove City i
+    *     solve [<#Iterations>]       apply the changes read so far and run a Simulation on the new instance
+    * Within a batch the ids are the ones of the last Simulation, an added City takes the next free id.
+    * After a batch adding or removing Cities, the remaining Cities keep their order and are numbered from 1 again.
+*/
+public final class Incremental {
+    private static final int DIST = 0;  // * Change codes, every change is sent as (code, a, b, c)
+    private static final int MOVE = 1;
+    private static final int ADD = 2;
+    private static final int REMOVE = 3;
+
+    private static BufferedReader in;   // * The stream of changes, only open on the root
+    private static int lineno;
+    private static int batches;         // * # of batches applied, for fresh random streams of the rebuilt Ants
+
+    static int iterations;              // * Iterations of the next Simulation, from its solve line
+    static String summary;              // * What the last batch changed, printed by the root
+
+    private Incremental() {}
+
+    /*
+        * active()
+        * @ desc : Check if the run takes changes after its first Simulation
+    */
+    static boolean active() {
+        return Parameters.deltaFile != null;
+    }
+
+    /*
+        * open()
+        * @ desc : Open the stream of changes on the root
+    */
+    static void open(int rank, int root) throws IOException {
+        if (!active() || rank != root)
+            return;
+        in = new BufferedReader(Parameters.deltaFile.equals("-") ? new InputStreamReader(System.in)
+                                                                 : new FileReader(Parameters.deltaFile));
+    }
+
+    /*
+        * next()
+        * @ desc : Wait for the next batch of changes and apply it on every Node
+        * @ param : The best Tour so far, the same on every Node, the default Iterations and the Root Node
+        * @ return : The best Tour repaired for the new instance, null when the stream has ended
+    */
+    static int[] next(int trip[], int niter, int root) {
+        // * The root reads and checks the batch, the other Nodes only get the checked changes
+        int head[] = new int[2];            // * Iterations (-1 at the end of the stream) and # of changes
+        double changes[] = new double[0];
+        if (Acotsp.rank == root) {
+            try {
+                changes = read(niter, head);
+            } catch (IOException e) {
+                System.err.println("Cannot read " + Parameters.deltaFile + " :: " + e.getMessage());
+                head[0] = -1;
+            }
+        }
+        Acotsp.comm.bcast(head, 0, 2, root);
+        if (head[0] < 0)
+            return null;
+        if (Acotsp.rank != root)
+            changes = new double[4 * head[1]];
+        Acotsp.comm.bcast(changes, 0, 4 * head[1], root);
+        iterations = head[0];
+        batches++;
+        return apply(changes, head[1], trip);
+    }
+
+    /*
+        * close()
+        * @ desc : Close the stream of changes
+    */
+    static void close() {
+        try {
+            if (in != null)
+                in.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+        * read()
+        * @ desc : Read the changes up to the next solve line, a wrong line is reported and skipped
+        * @ param : The default Iterations and the array receiving the Iterations and the # of changes
+        * @ return : The changes, 4 values each
+    */
+    private static double[] read(int niter, int head[]) throws IOException {
+        double changes[] = new double[64];
+        int count = 0;
+        int n = Acotsp.ncities;             // * Cities of the batch so far, added ones included
+        boolean coords = (Acotsp.COORDS != null);
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineno++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String words[] = line.split("\\s+");
+            try {
+                double change[][];
+                switch (words[0]) {
+                    case "solve":
+                        head[0] = (words.length > 1 && Integer.parseInt(words[1]) > 0) ? Integer.parseInt(words[1]) : niter;
+                        head[1] = count;
+                        return changes;
+                    case "d":
+                        if (coords)
+                            throw new IllegalArgumentException("Coordinate input has no Distances to set, move the City");
+                        change = new double[][] { { DIST, city(words, 1, n), city(words, 2, n), number(words, 3) } };
+                        if (change[0][1] == change[0][2])
+                            throw new IllegalArgumentException("an Edge needs two Cities");
+                        break;
+                    case "m":
+                        if (!coords)
+                            throw new IllegalArgumentException("adjacency list input has no Coordinates");
+                        change = new double[][] { { MOVE, city(words, 1, n), number(words, 2), number(words, 3) } };
+                        break;
+                    case "r":
+                        change = new double[][] { { REMOVE, city(words, 1, n), 0, 0 } };
+                        break;
+                    case "a":
+                        if (coords)
+                            change = new double[][] { { ADD, number(words, 1), number(words, 2), 0 } };
+                        else {
+                            // * The new City, then one Distance change per Edge
+                            String edges[] = (words.length > 1) ? line.substring(1).trim().split(",") : new String[0];
+                            change = new double[edges.length + 1][];
+                            change[0] = new double[] { ADD, 0, 0, 0 };
+                            for (int e = 0; e < edges.length; e++) {
+                                String edge[] = edges[e].trim().split(":");
+                                if (edge.length != 2)
+                                    throw new IllegalArgumentException("expected <j>:<distance>, got " + edges[e]);
+                                change[e + 1] = new double[] { DIST, n, city(edge, 0, n), number(edge, 1) };
+                            }
+                        }
+                        n++;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown change " + words[0]);
+                }
+                for (double c[] : change) {
+                    if (4 * (count + 1) > changes.length)
+                        changes = java.util.Arrays.copyOf(changes, 2 * changes.length);
+                    System.arraycopy(c, 0, changes, 4 * count++, 4);
+                }
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                System.err.println(Parameters.deltaFile + ":" + lineno + " :: " + e.getMessage() + ", line skipped");
+            }
+        }
+        head[0] = -1;                       // * End of the stream, the changes after the last solve line are dropped
+        return changes;
+    }
+
+    private static int city(String words[], int w, int n) {
+        int c = Integer.parseInt(words[w]);
+        if (c < 1 || c > n)
+            throw new IllegalArgumentException("no City " + c);
+        return c - 1;
+    }
+
+    private static double number(String words[], int w) {
+        return Double.parseDouble(words[w]);
+    }
+
+    /*
+        * apply()
+        * @ desc : Apply a batch of changes, in place when it only sets Distances, else by rebuilding the Matrices
+        * around the Pheromones of the Cities that stay
+        * @ param : The changes, their Number and the best Tour
+        * @ return : The best Tour repaired for the new instance
+    */
+    private static int[] apply(double changes[], int count, int trip[]) {
+        int n = Acotsp.ncities;
+        int added = 0, removed = 0, moved = 0, edges = 0;
+        for (int c = 0; c < count; c++) {
+            switch ((int) changes[4 * c]) {
+                case ADD: added++; break;
+                case REMOVE: removed++; break;
+                case MOVE: moved++; break;
+                default: edges++;
+            }
+        }
+        summary = "+" + added + " -" + removed + " Cities, " + moved + " moved, " + edges + " Distances";
+
+        // * New id of every City, the added ones come after the old ones and the removed ones get -1
+        int renumber[] = new int[n + added];
+        for (int c = 0; c < count; c++)
+            if ((int) changes[4 * c] == REMOVE)
+                renumber[(int) changes[4 * c + 1]] = -1;
+        int m = 0;
+        for (int i = 0; i < n + added; i++)
+            renumber[i] = (renumber[i] < 0) ? -1 : m++;
+
+        // * The Cities next to a change, where the Local Search looks first, and the ones whose Edges all changed
+        boolean touched[] = new boolean[m];
+        boolean fresh[] = new boolean[m];
+        for (int c = 0; c < count; c++) {
+            int code = (int) changes[4 * c];
+            int a = (code == ADD) ? -1 : renumber[(int) changes[4 * c + 1]];
+            if (a >= 0 && code == MOVE)
+                touched[a] = fresh[a] = true;
+            if (code == DIST) {
+                int b = renumber[(int) changes[4 * c + 2]];
+                if (a >= 0 && b >= 0)
+                    touched[a] = touched[b] = true;
+            }
+        }
+        for (int i = n; i < n + added; i++)
+            if (renumber[i] >= 0)
+                touched[renumber[i]] = fresh[renumber[i]] = true;
+        for (int p = 0; p < n; p++)
+            if (renumber[trip[p]] < 0) {
+                int before = renumber[trip[(p + n - 1) % n]], after = renumber[trip[(p + 1) % n]];
+                if (before >= 0) touched[before] = true;
+                if (after >= 0) touched[after] = true;
+            }
+
+        if (added == 0 && removed == 0 && moved == 0)
+            patch(changes, count);
+        else {
+            rebuild(changes, count, renumber, fresh);
+            trip = repair(trip, renumber, n);
+        }
+        summary += isolated(touched);
+
+        // * Resuming from the old best Tour, with Local Search around the changes when the run uses it
+        if (Parameters.localSearch > 0 && m >= 5) {
+            int woken[] = new int[m];
+            int w = 0;
+            for (int i = 0; i < m; i++)
+                if (touched[i])
+                    woken[w++] = i;
+            new LocalSearch(m).improve(trip, java.util.Arrays.copyOf(woken, w));
+        }
+        return trip;
+    }
+
+    /*
+        * patch()
+        * @ desc : Set Distances in place, refreshing only the Heuristics, Choices and Candidate Lists of their Cities
+        * The Distance Matrix may be the root's own array shared by in-process ranks, so every rank writes the same
+        * values and they all wait for each other before reading it again
+    */
+    private static void patch(double changes[], int count) {
+        for (int c = 0; c < count; c++) {
+            int i = (int) changes[4 * c + 1];
+            int j = (int) changes[4 * c + 2];
+            double d = changes[4 * c + 3];
+            Acotsp.GRAPH.set(i, j, d);
+            Acotsp.GRAPH.set(j, i, d);
+            double eta = (d > 0.0) ? Math.pow(1.0 / d, Parameters.beta) : 0.0;
+            Acotsp.HEURISTIC.set(i, j, eta);
+            Acotsp.HEURISTIC.set(j, i, eta);
+            Acotsp.missingEdge = Math.max(Acotsp.missingEdge, (Acotsp.ncities + 1) * d);
+        }
+        Acotsp.comm.barrier();
+        for (int c = 0; c < count; c++)
+            for (int e = 1; e <= 2; e++) {
+                int city = (int) changes[4 * c + e];
+                Acotsp.NEIGHBORS[city] = Acotsp.candidateList(city);
+                Acotsp.cities[city].candidates = Acotsp.NEIGHBORS[city];
+                Acotsp.cities[city].updateChoiceInfo();
+            }
+    }
+
+    /*
+        * rebuild()
+        * @ desc : Build the Matrices of the changed instance and carry over the Pheromones of the Edges that remain
+        * An Edge of an added or moved City gets the mean Pheromone of the old Edges, so it is neither favoured nor shunned
+        * @ param : The changes, their Number, the new id of every City and the added or moved Cities
+    */
+    private static void rebuild(double changes[], int count, int renumber[], boolean fresh[]) {
+        int n = Acotsp.ncities;
+        int m = fresh.length;
+        int old[] = new int[m];             // * Old id of every new City, -1 for an added one
+        for (int i = 0; i < renumber.length; i++)
+            if (renumber[i] >= 0)
+                old[renumber[i]] = (i < n) ? i : -1;
+
+        // * The new Distances or Coordinates
+        if (Acotsp.GRAPH != null) {
+            Matrix graph = new Matrix(m, Parameters.singlePrecision, Parameters.packedGraph);
+            for (int i = 0; i < m; i++)
+                for (int j = 0; j <= i; j++)
+                    if (old[i] >= 0 && old[j] >= 0) {
+                        graph.set(i, j, Acotsp.GRAPH.get(old[i], old[j]));
+                        graph.set(j, i, Acotsp.GRAPH.get(old[j], old[i]));
+                    }
+            for (int c = 0; c < count; c++) {
+                if ((int) changes[4 * c] != DIST)
+                    continue;
+                int i = renumber[(int) changes[4 * c + 1]];
+                int j = renumber[(int) changes[4 * c + 2]];
+                if (i >= 0 && j >= 0) {
+                    graph.set(i, j, changes[4 * c + 3]);
+                    graph.set(j, i, changes[4 * c + 3]);
+                }
+            }
+            Acotsp.GRAPH = graph;
+        }
+        else {
+            Coordinates coords = Acotsp.COORDS;
+            Coordinates moved = new Coordinates(m, coords.type);
+            for (int i = 0; i < m; i++)
+                if (old[i] >= 0) {
+                    moved.x[i] = coords.x[old[i]];
+                    moved.y[i] = coords.y[old[i]];
+                }
+            int next = n;
+            for (int c = 0; c < count; c++) {
+                int code = (int) changes[4 * c];
+                if (code != MOVE && code != ADD)
+                    continue;
+                int i = renumber[(code == ADD) ? next++ : (int) changes[4 * c + 1]];
+                int at = (code == ADD) ? 4 * c + 1 : 4 * c + 2;     // * Offset of x, an added City has no id
+                if (i < 0)
+                    continue;
+                boolean geo = (coords.type == Coordinates.GEO);
+                moved.x[i] = geo ? Coordinates.geoRadians(changes[at]) : changes[at];
+                moved.y[i] = geo ? Coordinates.geoRadians(changes[at + 1]) : changes[at + 1];
+            }
+            Acotsp.COORDS = moved;
+        }
+
+        // * The mean of the old Pheromones, over the Edges the Matrix really stores
+        Matrix pheromones = Acotsp.PHEROMONES;
+        double scale = Acotsp.pherScale;
+        double mean = 0.0;
+        long stored = 0;
+        for (int i = 0; i < n; i++) {
+            int from = pheromones.rowOffset(i);
+            for (int k = from; k < from + pheromones.rowLength(i); k++)
+                if (pheromones.column(i, k) >= 0 && pheromones.column(i, k) != i) {
+                    mean += pheromones.at(k);
+                    stored++;
+                }
+        }
+        mean = (stored > 0) ? scale * mean / stored : Parameters.initPheromones;
+
+        // * The Matrices of the new instance, then the old Pheromones in their new places
+        Acotsp.ncities = m;
+        Acotsp.buildMatrices();
+        if (m != n) {
+            Acotsp.ants = null;
+            Acotsp.shareTrips = null;
+            Acotsp.shareDists = null;
+        }
+        Acotsp.shareBuffer = null;
+        Acotsp.init();
+        if (m != n)
+            for (int k = 0; k < Parameters.nants / Acotsp.nprocs; k++)
+                Acotsp.ants[k].reseed(Rng.streamSeed(Rng.mix(Acotsp.seed + batches), Acotsp.rank, k));
+
+        Matrix carried = Acotsp.PHEROMONES;
+        for (int i = 0; i < m; i++) {
+            int from = carried.rowOffset(i);
+            for (int k = from; k < from + carried.rowLength(i); k++) {
+                int j = carried.column(i, k);
+                if (j < 0)
+                    continue;
+                int at = (fresh[i] || fresh[j]) ? -1 : pheromones.index(old[i], old[j]);
+                carried.put(k, (at >= 0) ? scale * pheromones.at(at) : mean);
+            }
+        }
+        Acotsp.parallelFor(m, i -> Acotsp.cities[i].updateChoiceInfo());
+    }
+
+    /*
+        * isolated()
+        * @ desc : Check the changed Cities of an adjacency list still have the two Edges a Tour needs to pass through them
+        * A City with fewer leaves no Tour without missing Edges, the Simulation then runs on and reports its Tour infeasible
+        * @ param : The Cities next to a change
+        * @ return : A note for the summary of the batch, empty if every changed City has two Edges
+    */
+    private static String isolated(boolean touched[]) {
+        if (Acotsp.GRAPH == null || touched.length < 3)
+            return "";
+        StringBuilder note = new StringBuilder();
+        for (int i = 0; i < touched.length; i++) {
+            if (!touched[i])
+                continue;
+            int degree = 0;
+            for (int j = 0; j < touched.length && degree < 2; j++)
+                if (j != i && Acotsp.GRAPH.get(i, j) > 0.0)
+                    degree++;
+            if (degree < 2)
+                note.append(note.length() == 0 ? ", infeasible :: City " : ", City ").append(i + 1)
+                    .append(" has ").append(degree).append(degree == 1 ? " Edge" : " Edges");
+        }
+        return note.toString();
+    }
+
+    /*
+        * repair()
+        * @ desc : Drop the removed Cities from the best Tour, renumber it and put every added City
+        * where it lengthens the Tour the least
+        * @ param : The old best Tour, the new id of every City and the old # of Cities
+    */
+    private static int[] repair(int trip[], int renumber[], int n) {
+        int m = Acotsp.ncities;
+        int repaired[] = new int[m];
+        int len = 0;
+        for (int c : trip)
+            if (renumber[c] >= 0)
+                repaired[len++] = renumber[c];
+        for (int i = n; i < renumber.length; i++) {
+            int city = renumber[i];
+            if (city < 0)
+                continue;
+            if (len < 2) {
+                repaired[len++] = city;
+                continue;
+            }
+            int best = 0;
+            double bestCost = Double.MAX_VALUE;
+            for (int p = 0; p < len; p++) {
+                int a = repaired[p], b = repaired[(p + 1 == len) ? 0 : p + 1];
+                double cost = Acotsp.cost(a, city) + Acotsp.cost(city, b) - Acotsp.cost(a, b);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = p + 1;
+                }
+            }
+            System.arraycopy(repaired, best, repaired, best + 1, len - best);
+            repaired[best] = city;
+            len++;
+        }
+        return repaired;
+    }
+}
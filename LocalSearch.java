@@ -0,0 +1,222 @@
+/*
+    * LocalSearch Object Class
+    * 2-opt and Or-opt improvement of a Tour, restricted to the Candidate Lists and driven by don't-look bits,
+    * so a pass over an already good Tour costs about O(n * k) instead of O(n^2).
+    * Every Ant owns its LocalSearch, so Tours may be improved on different Threads.
+*/
+public class LocalSearch {
+    private static final double EPS = 1e-9;   // * Minimum gain of an applied move, against rounding loops
+
+    private int ncities;            // * Number of Cities
+    private int tour[];             // * Tour being improved
+    private int pos[];              // * Position of every City in the Tour
+    private boolean dontLook[];     // * Don't-look bit of every City
+
+    /*
+        * LocalSearch()
+        * @ desc : Allocate the working arrays
+        * @ param : The Number of Cities
+    */
+    public LocalSearch(int n) {
+        super();
+        ncities = n;
+        pos = new int[n];
+        dontLook = new boolean[n];
+    }
+
+    /*
+        * improve()
+        * @ desc : Apply improving 2-opt and Or-opt moves until none is left
+        * @ param : The Tour, improved in place
+        * @ return : The Distance of the improved Tour
+    */
+    public double improve(int trip[]) {
+        return improve(trip, null);
+    }
+
+    /*
+        * improve()
+        * @ desc : Apply improving 2-opt and Or-opt moves, starting the search only around some Cities
+        * The others keep their don't-look bit until a move changes one of their Edges, so repairing
+        * a few places of an otherwise good Tour costs about the size of the repaired area
+        * @ param : The Tour, improved in place, and the Cities to start from (null for every City)
+        * @ return : The Distance of the improved Tour
+    */
+    public double improve(int trip[], int active[]) {
+        tour = trip;
+        for (int i = 0; i < ncities; i++) {
+            pos[tour[i]] = i;
+            dontLook[i] = (active != null);
+        }
+        if (active != null)
+            for (int c : active)
+                dontLook[c] = false;
+
+        if (ncities >= 5) {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int c = 0; c < ncities; c++) {
+                    if (dontLook[c])
+                        continue;
+                    if (twoOpt(c) || orOpt(c))
+                        improved = true;
+                    else
+                        dontLook[c] = true;     // * No move found around this City until one of its Edges changes
+                }
+            }
+        }
+
+        double length = 0.0;
+        for (int i = 0; i < ncities; i++)
+            length += dist(tour[i], tour[(i + 1 == ncities) ? 0 : i + 1]);
+        return length;
+    }
+
+    /*
+        * twoOpt()
+        * @ desc : Search a 2-opt move replacing an Edge of the City by an Edge to one of its Candidates
+        * @ param : The City
+        * @ return : True if a move was applied
+    */
+    private boolean twoOpt(int c1) {
+        int candidates[] = Acotsp.NEIGHBORS[c1];
+        for (int dir = 0; dir < 2; dir++) {
+            int c2 = (dir == 0) ? succ(c1) : pred(c1);
+            double d12 = dist(c1, c2);
+            for (int i = 0; i < candidates.length; i++) {
+                int c3 = candidates[i];
+                double d13 = dist(c1, c3);
+                if (d13 >= d12)
+                    break;              // * Candidates are sorted, no farther one can give a gain
+                int c4 = (dir == 0) ? succ(c3) : pred(c3);
+                if (c3 == c2 || c4 == c1)
+                    continue;
+                double delta = d13 + dist(c2, c4) - d12 - dist(c3, c4);
+                if (delta < -EPS) {
+                    // * Replacing the Edges (c1, c2) and (c3, c4) by (c1, c3) and (c2, c4)
+                    if (dir == 0)
+                        move(c1, c2, c3, c4);
+                    else
+                        move(c2, c1, c4, c3);
+                    wake(c1); wake(c2); wake(c3); wake(c4);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+        * orOpt()
+        * @ desc : Search an Or-opt move taking the segment of 1 to 3 Cities starting at the City
+        * and inserting it, in either orientation, next to a Candidate of its ends
+        * @ param : The City
+        * @ return : True if a move was applied
+    */
+    private boolean orOpt(int s1) {
+        for (int len = 1; len <= 3 && len + 3 <= ncities; len++) {
+            int s2 = s1;
+            for (int i = 1; i < len; i++)
+                s2 = succ(s2);
+            int p = pred(s1);
+            int nx = succ(s2);
+            double removeGain = dist(p, s1) + dist(s2, nx) - dist(p, nx);
+            if (removeGain <= EPS)
+                continue;
+
+            for (int end = 0; end < 2; end++) {
+                int s = (end == 0) ? s1 : s2;
+                int candidates[] = Acotsp.NEIGHBORS[s];
+                for (int i = 0; i < candidates.length; i++) {
+                    int c = candidates[i];
+                    if (dist(s, c) >= removeGain)
+                        break;
+                    if (inSegment(c, s1, len))
+                        continue;
+                    // * Trying the Edges on both sides of the Candidate
+                    for (int side = 0; side < 2; side++) {
+                        int e1 = (side == 0) ? c : pred(c);
+                        int e2 = (side == 0) ? succ(c) : c;
+                        if (inSegment(e1, s1, len) || inSegment(e2, s1, len))
+                            continue;
+                        double base = dist(e1, e2);
+                        double keep = dist(e1, s1) + dist(s2, e2) - base;     // * e1 s1..s2 e2
+                        double flip = dist(e1, s2) + dist(s1, e2) - base;     // * e1 s2..s1 e2
+                        if (Math.min(keep, flip) < removeGain - EPS) {
+                            // * Three 2-opt moves: (p,c)(s1,d) then (p,nx)(c,s2), then (c,s1)(s2,d) to keep the orientation
+                            move(p, s1, e1, e2);
+                            move(p, e1, nx, s2);
+                            if (keep < flip)
+                                move(e1, s2, s1, e2);
+                            wake(p); wake(nx); wake(s1); wake(s2); wake(e1); wake(e2);
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+        * move()
+        * @ desc : 2-opt move removing the Edges (x1, x2) and (y1, y2) and adding (x1, y1) and (x2, y2)
+        * The pairs must follow the same direction around the Tour
+    */
+    private void move(int x1, int x2, int y1, int y2) {
+        if (succ(x1) == x2)
+            reverse(pos[x2], pos[y1]);
+        else
+            reverse(pos[x1], pos[y2]);
+    }
+
+    /*
+        * reverse()
+        * @ desc : Reverse the Tour between two positions going forward, or the rest of the Tour when it is shorter
+        * Both give the same cycle, only the direction of travel differs
+    */
+    private void reverse(int from, int to) {
+        int len = ((to - from + ncities) % ncities) + 1;
+        if (2 * len > ncities) {
+            int f = (to + 1) % ncities;
+            to = (from - 1 + ncities) % ncities;
+            from = f;
+            len = ncities - len;
+        }
+        for (int s = 0; s < len / 2; s++) {
+            int i = from + s;
+            if (i >= ncities) i -= ncities;
+            int j = to - s;
+            if (j < 0) j += ncities;
+            int ci = tour[i];
+            int cj = tour[j];
+            tour[i] = cj;
+            pos[cj] = i;
+            tour[j] = ci;
+            pos[ci] = j;
+        }
+    }
+
+    private boolean inSegment(int c, int s1, int len) {
+        return ((pos[c] - pos[s1] + ncities) % ncities) < len;
+    }
+
+    private int succ(int c) {
+        int i = pos[c] + 1;
+        return tour[(i == ncities) ? 0 : i];
+    }
+
+    private int pred(int c) {
+        int i = pos[c] - 1;
+        return tour[(i < 0) ? ncities - 1 : i];
+    }
+
+    private void wake(int c) {
+        dontLook[c] = false;
+    }
+
+    private static double dist(int i, int j) {
+        return Acotsp.cost(i, j);           // * A missing Edge is the first one a move removes
+    }
+}
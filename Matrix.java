@@ -0,0 +1,199 @@
+/*
+    * Matrix Object Class
+    * Flat row-major storage of an n x n Matrix in a single primitive array,
+    * in double or float precision and optionally packed to its lower triangle.
+    * A sparse Matrix only stores the Edges of the Candidate Lists, one fixed width Row per City.
+*/
+public class Matrix {
+    public final int n;             // * Number of Rows/Columns
+    public final boolean single;    // * Flag for float (single) precision storage
+    public final boolean packed;    // * Flag for symmetric storage of the lower triangle only
+    public final boolean sparse;    // * Flag for storage of the Candidate Edges only
+    private int width;              // * Number of Entries per Row of a sparse Matrix
+    private int columns[];          // * Column of every Entry of a sparse Matrix, -1 for padding
+    private double dvalues[];       // * Entries in double precision
+    private float fvalues[];        // * Entries in single precision
+
+    /*
+        * Matrix()
+        * @ desc : Allocate a zeroed Matrix
+        * @ param : The Number of Rows/Columns, the Precision flag and the Symmetric Packing flag
+    */
+    public Matrix(int size, boolean singlePrecision, boolean symmetric) {
+        super();
+        n = size;
+        single = singlePrecision;
+        packed = symmetric;
+        sparse = false;
+
+        long entries = packed ? (long) n * (n + 1) / 2 : (long) n * n;
+        if (entries > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Matrix of " + n + " cities has " + entries + " entries, too many for one array");
+        if (single)
+            fvalues = new float[(int) entries];
+        else
+            dvalues = new double[(int) entries];
+    }
+
+    /*
+        * Matrix()
+        * @ desc : Allocate a zeroed sparse Matrix holding only the Candidate Edges
+        * Entries off the Candidate Lists read as 0 and writes to them are dropped
+        * @ param : The Candidate List of every Row and the Precision flag
+    */
+    public Matrix(int neighbors[][], boolean singlePrecision) {
+        super();
+        n = neighbors.length;
+        single = singlePrecision;
+        packed = false;
+        sparse = true;
+
+        for(int i = 0; i < n; i++)
+            width = Math.max(width, neighbors[i].length);
+        columns = new int[n * width];
+        for(int i = 0; i < n; i++)
+            for(int k = 0; k < width; k++)
+                columns[i * width + k] = (k < neighbors[i].length) ? neighbors[i][k] : -1;
+        if (single)
+            fvalues = new float[columns.length];
+        else
+            dvalues = new double[columns.length];
+    }
+
+    /*
+        * index()
+        * @ desc : Position of an Entry in the flat storage
+        * @ param : The Row and the Column
+        * @ return : The Offset of the Entry, or -1 if a sparse Matrix does not store it
+    */
+    public int index(int i, int j) {
+        if (sparse)
+            return find(i, j);
+        if (!packed)
+            return i * n + j;
+        return (i >= j) ? (int) ((long) i * (i + 1) / 2) + j : (int) ((long) j * (j + 1) / 2) + i;
+    }
+
+    /*
+        * rowOffset()
+        * @ desc : Offset of the first Entry owned by a Row
+        * Every Entry is owned by exactly one Row, so walking the owned Entries of all the Rows covers the Matrix once
+        * @ param : The Row
+    */
+    public int rowOffset(int i) {
+        if (sparse)
+            return i * width;
+        return packed ? (int) ((long) i * (i + 1) / 2) : i * n;
+    }
+
+    /*
+        * rowLength()
+        * @ desc : Number of contiguous Entries owned by a Row (the whole Row, or its lower triangle part when packed)
+        * @ param : The Row
+    */
+    public int rowLength(int i) {
+        if (sparse)
+            return width;
+        return packed ? i + 1 : n;
+    }
+
+    /*
+        * column()
+        * @ desc : Column of an Entry owned by a Row
+        * @ param : The Row and the Offset of the Entry
+        * @ return : The Column, or -1 for the padding of a sparse Matrix
+    */
+    public int column(int i, int k) {
+        return sparse ? columns[k] : k - rowOffset(i);
+    }
+
+    /*
+        * find()
+        * @ desc : Search the Candidate Row of i, then the one of j, for the Edge (i, j)
+    */
+    private int find(int i, int j) {
+        for(int k = i * width; k < (i + 1) * width; k++)
+            if (columns[k] == j)
+                return k;
+        for(int k = j * width; k < (j + 1) * width; k++)
+            if (columns[k] == i)
+                return k;
+        return -1;
+    }
+
+    public double get(int i, int j) {
+        int k = index(i, j);
+        return (k < 0) ? 0.0 : at(k);
+    }
+
+    public void set(int i, int j, double value) {
+        int k = index(i, j);
+        if (k >= 0)
+            put(k, value);
+    }
+
+    public void add(int i, int j, double value) {
+        int k = index(i, j);
+        if (k >= 0)
+            put(k, at(k) + value);
+    }
+
+    /*
+        * at()
+        * @ desc : Read an Entry by its Offset in the flat storage
+    */
+    public double at(int k) {
+        return single ? fvalues[k] : dvalues[k];
+    }
+
+    /*
+        * put()
+        * @ desc : Write an Entry by its Offset in the flat storage
+    */
+    public void put(int k, double value) {
+        if (single)
+            fvalues[k] = (float) value;
+        else
+            dvalues[k] = value;
+    }
+
+    /*
+        * scale()
+        * @ desc : Multiply every Entry by a factor
+    */
+    public void scale(double factor) {
+        if (single)
+            for (int k = 0; k < fvalues.length; k++)
+                fvalues[k] *= factor;
+        else
+            for (int k = 0; k < dvalues.length; k++)
+                dvalues[k] *= factor;
+    }
+
+    /*
+        * buffer()
+        * @ desc : The backing array (double[] or float[]), for sending the whole Matrix as one message
+    */
+    public Object buffer() {
+        return single ? (Object) fvalues : (Object) dvalues;
+    }
+
+    /*
+        * adopt()
+        * @ desc : Replace the backing array by another one of the same type and length, e.g. shared by another rank
+    */
+    public void adopt(Object values) {
+        if (single)
+            fvalues = (float[]) values;
+        else
+            dvalues = (double[]) values;
+    }
+
+    /*
+        * length()
+        * @ desc : Number of Entries in the backing array
+    */
+    public int length() {
+        return single ? fvalues.length : dvalues.length;
+    }
+}
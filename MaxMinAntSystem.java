@@ -0,0 +1,101 @@
+/*
+    * MaxMinAntSystem Class
+    * MAX-MIN Ant System : only the iteration-best Tour, or now and then the best Tour so far, deposits, and every
+    * Pheromone is kept within [tauMin, tauMax] so no Edge is ever ruled out. The Pheromones start at an estimate of
+    * tauMax and are reset to it once the best Tour stops improving for Parameters.mmasRestart Iterations.
+    * The bounds are compared to the stored values scaled by pherScale, so the Evaporation itself stays lazy,
+    * the bounds cost one compare pass over the stored Edges per Iteration.
+*/
+public class MaxMinAntSystem implements PheromoneUpdate {
+    private int bestTour[];             // * Best Tour of this Node in the Simulation
+    private double bestDist = Double.MAX_VALUE;
+    private double tauMax;
+    private double tauMin;
+    private int iteration;
+    private int lastImprovement;
+
+    public MaxMinAntSystem() {
+        setBounds(Acotsp.nearestNeighborLength());
+    }
+
+    public double initial() {
+        return tauMax;
+    }
+
+    public boolean evaporate() {
+        return Acotsp.evaporate();
+    }
+
+    public void deposit(int nlocal) {
+        iteration++;
+        Ant best = Acotsp.iterationBest();
+        if (best.tripDist < bestDist) {
+            if (bestTour == null)
+                bestTour = new int[Acotsp.ncities];
+            System.arraycopy(best.tour, 0, bestTour, 0, Acotsp.ncities);
+            bestDist = best.tripDist;
+            lastImprovement = iteration;
+            setBounds(bestDist);
+        }
+
+        if (Parameters.mmasGlobalInterval > 0 && iteration % Parameters.mmasGlobalInterval == 0)
+            Acotsp.depositTour(bestTour, 0, Parameters.Q / bestDist);
+        else
+            best.updatePherTrails();
+
+        // * Starting over from tauMax when the Colony converged on a Tour it cannot improve
+        if (Parameters.mmasRestart > 0 && iteration - lastImprovement >= Parameters.mmasRestart) {
+            lastImprovement = iteration;
+            Acotsp.parallelFor(Acotsp.ncities, j -> Acotsp.cities[j].reset(tauMax));
+            return;
+        }
+        double lo = tauMin / Acotsp.pherScale;
+        double hi = tauMax / Acotsp.pherScale;
+        Acotsp.parallelFor(Acotsp.ncities, j -> Acotsp.cities[j].clampPheromones(lo, hi));
+    }
+
+    public int[] bestTour() {
+        return bestTour;
+    }
+
+    public double bestDist() {
+        return bestDist;
+    }
+
+    public int iteration() {
+        return iteration;
+    }
+
+    public int lastImprovement() {
+        return lastImprovement;
+    }
+
+    public void restore(int tour[], double dist, int iter, int improvement) {
+        bestTour = tour;
+        bestDist = dist;
+        iteration = iter;
+        lastImprovement = improvement;
+        if (tour != null)
+            setBounds(dist);
+    }
+
+    public void localUpdate(int from, int to) {}
+
+    public double exploitation() {
+        return 0.0;
+    }
+
+    /*
+        * setBounds()
+        * @ desc : tauMax is the Pheromone an Edge of the best Tour converges to, Q / ((1 - rho) * Distance),
+        * tauMin the level at which the best Tour is built again with probability Parameters.mmasPBest
+        * @ param : The Distance of the best Tour
+    */
+    private void setBounds(double dist) {
+        int n = Acotsp.ncities;
+        tauMax = Parameters.Q / (Math.max(1.0 - Parameters.rho, 1e-9) * dist);
+        double pdec = Math.pow(Parameters.mmasPBest, 1.0 / n);
+        double options = Math.max(n / 2.0 - 1.0, 1.0);     // * Average Number of choices left along a Tour
+        tauMin = Math.min(tauMax * (1.0 - pdec) / (options * pdec), tauMax);
+    }
+}
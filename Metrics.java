@@ -0,0 +1,168 @@
+import java.io.*;
+
+/*
+    * Metrics Class
+    * Per Node phase timers, choice counters and convergence trace of a run.
+    * Every Node writes one CSV line per Iteration to <Parameters.metricsFile>.<rank>.csv and the root writes the
+    * totals summed and maxed over the Nodes to <Parameters.metricsFile>.summary.csv after every Simulation.
+    * ENABLED is a static final snapshot of the Parameter, so with the metrics off the JIT removes every probe.
+*/
+public final class Metrics {
+    static final boolean ENABLED = Parameters.metricsFile != null;
+
+    // * Phases of an Iteration, then of the end of a Simulation
+    static final int CONSTRUCT = 0;     // * Tour construction by the Ants
+    static final int LOCAL_SEARCH = 1;  // * 2-opt/Or-opt improvement
+    static final int EVAPORATE = 2;     // * Evaporation
+    static final int DEPOSIT = 3;       // * Pheromone deposits of the Ants
+    static final int SHARE = 4;         // * Exchanges between the cooperating Nodes
+    static final int WAIT = 5;          // * Waiting for the slowest Node before a collective
+    static final int REFRESH = 6;       // * Refresh of the Choice Values
+    static final int GATHER = 7;        // * Reduction of the results at the end of a Simulation
+    static final int CHECKPOINT = 8;    // * Snapshot of the Colony handed to the Checkpoint writer
+    static final String PHASES[] = { "construct", "localsearch", "evaporate", "deposit", "share", "wait", "refresh", "gather",
+                                     "checkpoint" };
+
+    // * Counters of the Ant steps, kept by every Ant and collected once per Iteration
+    static final int STEPS = 0;         // * Cities chosen
+    static final int RANDOM = 1;        // * Chosen uniformly at random
+    static final int CANDIDATE = 2;     // * Chosen among the Candidate List
+    static final int NEAREST = 3;       // * Nearest unvisited City, every Candidate visited on sparse Matrices
+    static final int SCAN = 4;          // * Chosen by the scan of all the unvisited Cities
+    static final int SCAN_EMPTY = 5;    // * Scan found only missing Edges and took any unvisited City
+    static final int EXPLOIT = 6;       // * Best Edge taken outright, Ant Colony System only
+    static final String COUNTERS[] = { "steps", "random", "candidate", "nearest", "scan", "scanEmpty", "exploit" };
+
+    private static long phase[] = new long[PHASES.length];     // * Nanoseconds of the current Iteration
+    private static long phaseTotal[] = new long[PHASES.length];// * Nanoseconds of the current Simulation
+    private static long countTotal[] = new long[COUNTERS.length];
+    private static PrintWriter trace;   // * Iteration trace of this Node
+    private static PrintWriter summary; // * Summary written by the root
+
+    private Metrics() {}
+
+    /*
+        * open()
+        * @ desc : Create the trace file of this Node, and the summary file on the root
+        * @ param : The MPI Rank of this Node and the Rank of the root
+    */
+    static void open(int rank, int root) throws IOException {
+        if (!ENABLED)
+            return;
+        trace = new PrintWriter(new BufferedWriter(new FileWriter(Parameters.metricsFile + "." + rank + ".csv")));
+        trace.print("sim,iter,best,iterBest");
+        for (String name : PHASES)
+            trace.print("," + name + "Ns");
+        for (String name : COUNTERS)
+            trace.print("," + name);
+        trace.println();
+
+        if (rank == root) {
+            summary = new PrintWriter(new BufferedWriter(new FileWriter(Parameters.metricsFile + ".summary.csv")));
+            summary.println("sim,metric,sum,max");
+        }
+    }
+
+    /*
+        * start()
+        * @ desc : Start time of a phase, 0 when the metrics are off
+    */
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /*
+        * stop()
+        * @ desc : Add the time since start() to a phase
+        * @ param : The phase and the value returned by start()
+    */
+    static void stop(int which, long start) {
+        if (ENABLED)
+            phase[which] += System.nanoTime() - start;
+    }
+
+    /*
+        * waitAll()
+        * @ desc : Time a Barrier before a collective, so the wait for the slowest Node is told apart from the transfer
+        * Only done with the metrics on, a run without them never synchronises there
+    */
+    static void waitAll() {
+        if (!ENABLED)
+            return;
+        long t = System.nanoTime();
+        Acotsp.comm.barrier();
+        phase[WAIT] += System.nanoTime() - t;
+    }
+
+    /*
+        * iteration()
+        * @ desc : Collect the counters of the Ants and write the trace line of an Iteration
+        * @ param : The Simulation, the Iteration, the best Distance so far and of this Iteration, the Ants of this Node
+    */
+    static void iteration(int sim, int iter, double best, double iterBest, Ant ants[], int nants) {
+        if (!ENABLED)
+            return;
+        long counts[] = new long[COUNTERS.length];
+        for (int k = 0; k < nants; k++) {
+            for (int c = 0; c < COUNTERS.length; c++) {
+                counts[c] += ants[k].counts[c];
+                ants[k].counts[c] = 0;
+            }
+        }
+
+        trace.print(sim + "," + iter + "," + best + "," + iterBest);
+        for (int p = 0; p < PHASES.length; p++) {
+            trace.print("," + phase[p]);
+            phaseTotal[p] += phase[p];
+            phase[p] = 0;
+        }
+        for (int c = 0; c < COUNTERS.length; c++) {
+            trace.print("," + counts[c]);
+            countTotal[c] += counts[c];
+        }
+        trace.println();
+    }
+
+    /*
+        * simulation()
+        * @ desc : Reduce the totals of a Simulation over all the Nodes and write them to the summary on the root
+        * The sum gives the work of the whole run, the max the Node on the critical path
+        * @ param : The Simulation and the Rank of the root
+    */
+    static void simulation(int sim, int root) {
+        if (!ENABLED)
+            return;
+        int n = PHASES.length + COUNTERS.length;
+        long local[] = new long[n];
+        for (int p = 0; p < PHASES.length; p++)
+            local[p] = phaseTotal[p] + phase[p];     // * The gather phase comes after the last trace line
+        System.arraycopy(countTotal, 0, local, PHASES.length, COUNTERS.length);
+        long sum[] = new long[n];
+        long max[] = new long[n];
+        Acotsp.comm.reduce(local, 0, sum, 0, n, Comm.SUM, root);
+        Acotsp.comm.reduce(local, 0, max, 0, n, Comm.MAX, root);
+
+        if (summary != null) {
+            for (int m = 0; m < n; m++) {
+                String name = (m < PHASES.length) ? PHASES[m] + "Ns" : COUNTERS[m - PHASES.length];
+                summary.println(sim + "," + name + "," + sum[m] + "," + max[m]);
+            }
+            summary.flush();
+        }
+        trace.flush();
+        java.util.Arrays.fill(phase, 0L);
+        java.util.Arrays.fill(phaseTotal, 0L);
+        java.util.Arrays.fill(countTotal, 0L);
+    }
+
+    /*
+        * close()
+        * @ desc : Flush and close the files
+    */
+    static void close() {
+        if (trace != null)
+            trace.close();
+        if (summary != null)
+            summary.close();
+    }
+}
@@ -0,0 +1,143 @@
+import mpi.*;
+
+/*
+    * MpiComm Class
+    * Comm backend over the Java MPI binding, one rank per MPI process started by mpirun.
+    * MPI errors are rethrown unchecked, a failed collective ends the run like before.
+*/
+public class MpiComm implements Comm {
+    private final int rank;
+    private final int size;
+
+    /*
+        * MpiComm()
+        * @ desc : Start MPI
+        * @ param : The Arguments of the program
+    */
+    public MpiComm(String args[]) {
+        try {
+            MPI.Init(args);
+            rank = MPI.COMM_WORLD.Rank();
+            size = MPI.COMM_WORLD.Size();
+        } catch (MPIException e) {
+            throw new IllegalStateException("MPI initialisation failed", e);
+        }
+    }
+
+    public int rank() {
+        return rank;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void bcast(Object buf, int offset, int count, int root) {
+        try {
+            MPI.COMM_WORLD.Bcast(buf, offset, count, type(buf), root);
+        } catch (MPIException e) {
+            throw new IllegalStateException("MPI Bcast failed", e);
+        }
+    }
+
+    public Object share(Object buf, int root) {
+        bcast(buf, 0, java.lang.reflect.Array.getLength(buf), root);
+        return buf;
+    }
+
+    public void reduce(Object sendbuf, int sendoffset, Object recvbuf, int recvoffset, int count, int op, int root) {
+        try {
+            MPI.COMM_WORLD.Reduce(sendbuf, sendoffset, recvbuf, recvoffset, count, type(sendbuf), op(op), root);
+        } catch (MPIException e) {
+            throw new IllegalStateException("MPI Reduce failed", e);
+        }
+    }
+
+    public void allreduce(Object sendbuf, int sendoffset, Object recvbuf, int recvoffset, int count, int op) {
+        try {
+            MPI.COMM_WORLD.Allreduce(sendbuf, sendoffset, recvbuf, recvoffset, count, type(sendbuf), op(op));
+        } catch (MPIException e) {
+            throw new IllegalStateException("MPI Allreduce failed", e);
+        }
+    }
+
+    public void allreduceMinloc(double sendbuf[], int sendoffset, double recvbuf[], int recvoffset, int count) {
+        try {
+            MPI.COMM_WORLD.Allreduce(sendbuf, sendoffset, recvbuf, recvoffset, count, MPI.DOUBLE2, MPI.MINLOC);
+        } catch (MPIException e) {
+            throw new IllegalStateException("MPI Allreduce failed", e);
+        }
+    }
+
+    public void allgather(Object sendbuf, int sendoffset, int count, Object recvbuf, int recvoffset) {
+        try {
+            MPI.COMM_WORLD.Allgather(sendbuf, sendoffset, count, type(sendbuf), recvbuf, recvoffset, count, type(recvbuf));
+        } catch (MPIException e) {
+            throw new IllegalStateException("MPI Allgather failed", e);
+        }
+    }
+
+    public void sendrecv(Object sendbuf, int sendoffset, int count, int dest,
+                         Object recvbuf, int recvoffset, int source, int tag) {
+        try {
+            MPI.COMM_WORLD.Sendrecv(sendbuf, sendoffset, count, type(sendbuf), dest, tag,
+                                    recvbuf, recvoffset, count, type(recvbuf), source, tag);
+        } catch (MPIException e) {
+            throw new IllegalStateException("MPI Sendrecv failed", e);
+        }
+    }
+
+    public void send(Object buf, int offset, int count, int dest, int tag) {
+        try {
+            MPI.COMM_WORLD.Send(buf, offset, count, type(buf), dest, tag);
+        } catch (MPIException e) {
+            throw new IllegalStateException("MPI Send failed", e);
+        }
+    }
+
+    public int recv(Object buf, int offset, int count, int source, int tag) {
+        try {
+            Status status = MPI.COMM_WORLD.Recv(buf, offset, count, type(buf), (source == ANY_SOURCE) ? MPI.ANY_SOURCE : source, tag);
+            return status.source;
+        } catch (MPIException e) {
+            throw new IllegalStateException("MPI Recv failed", e);
+        }
+    }
+
+    public void barrier() {
+        try {
+            MPI.COMM_WORLD.Barrier();
+        } catch (MPIException e) {
+            throw new IllegalStateException("MPI Barrier failed", e);
+        }
+    }
+
+    public void finish() {
+        try {
+            MPI.Finalize();
+        } catch (MPIException e) {
+            throw new IllegalStateException("MPI Finalize failed", e);
+        }
+    }
+
+    /*
+        * type()
+        * @ desc : MPI Datatype of the elements of a buffer
+    */
+    private static Datatype type(Object buf) {
+        if (buf instanceof int[]) return MPI.INT;
+        if (buf instanceof long[]) return MPI.LONG;
+        if (buf instanceof float[]) return MPI.FLOAT;
+        if (buf instanceof double[]) return MPI.DOUBLE;
+        throw new IllegalArgumentException("Unsupported buffer " + buf.getClass().getSimpleName());
+    }
+
+    private static Op op(int op) {
+        switch (op) {
+            case SUM: return MPI.SUM;
+            case MIN: return MPI.MIN;
+            case MAX: return MPI.MAX;
+            default: throw new IllegalArgumentException("Unknown reduction " + op);
+        }
+    }
+}
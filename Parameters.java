@@ -27,4 +27,102 @@ public class Parameters {
 
     // * Constant for Calculation for Pheromone Update
     public static double Q = 500;
-}
\ No newline at end of file
+
+    // * Number of Nearest Neighbors kept in the Candidate List of every City (0 disables Candidate Lists)
+    public static int ncandidates = 20;
+
+    // * Store the Distance, Pheromone and Choice Matrices in float instead of double
+    public static boolean singlePrecision = false;
+
+    // * Store only the lower triangle of the Matrices, the Pheromone Trails become symmetric
+    public static boolean packedGraph = false;
+
+    // * Load the Input File from its Binary Cache (<filename>.acog), writing the Cache when missing or stale
+    public static boolean graphCache = false;
+
+    // * Number of Threads building the Tours of the Ants of each MPI Node (0 uses every available core, split between in-process ranks)
+    public static int nthreads = 0;
+
+    // * Cooperation of the MPI Nodes : 0 independent Colonies, 1 average the Pheromone Matrices,
+    // * 2 deposit the iteration-best Tour of every Node on every Node, 3 islands passing their best Tour around a ring
+    public static int shareMode = 0;
+
+    // * Number of Iterations between two exchanges of the Cooperating Nodes
+    public static int shareInterval = 10;
+
+    // * Tour Distance whose first achievement is timed, to compare the Cooperation modes (0 disables)
+    public static double targetDist = 0;
+
+    // * 2-opt/Or-opt Local Search on the Tours : 0 none, 1 the iteration-best Tour only, 2 every Tour
+    public static int localSearch = 0;
+
+    // * Evaporate through one global factor in O(1) per Iteration instead of scaling every Pheromone entry
+    public static boolean lazyEvaporation = true;
+
+    // * Master seed of the random number streams, a run is reproduced by reusing it (0 picks a time based seed)
+    public static long seed = 0;
+
+    // * Random number generator of the Ants : 0 xoroshiro128+, 1 SplitMix64
+    public static int rngType = 0;
+
+    // * Use the SIMD (Vector API) kernel for the full scan Probabilities, it falls back to the scalar one when unavailable
+    // * Off by default, it pays off only where gathers are fast, measure it on the target nodes first
+    public static boolean vectorKernel = false;
+
+    // * Prefix of the metrics files : <prefix>.<rank>.csv per Node and <prefix>.summary.csv on the root (null disables them)
+    public static String metricsFile = null;
+
+    // * Wall clock budget of the whole run in ms, the remaining Simulations are skipped when it is spent (0 disables)
+    public static long timeBudget = 0;
+
+    // * Stop a Simulation as soon as a Node reaches Parameters.targetDist
+    public static boolean stopAtTarget = false;
+
+    // * Stop a Simulation when no Node improved its best Tour for this many Iterations (0 disables)
+    public static int stagnationIters = 0;
+
+    // * Stop a Simulation when the lambda-branching factor of every Node falls below this, 1 is a fully converged Colony (0 disables)
+    // * on every Matrix layout. Ignored under Ant Colony System, whose factor is about 1 from the start, use stagnationIters there
+    public static double branchingFactor = 0;
+
+    // * Number of Iterations between two termination checks, each check is one small Allreduce
+    public static int terminationInterval = 1;
+
+    // * Prefix of the Checkpoint files, <prefix>.<rank>.0.ckpt and <prefix>.<rank>.1.ckpt (null disables Checkpoints)
+    public static String checkpointFile = null;
+
+    // * Number of Iterations between two Checkpoints
+    public static int checkpointInterval = 100;
+
+    // * Resume from the last Checkpoint held by every Node, a fresh run starts when there is none
+    public static boolean resume = false;
+
+    // * Run this many ranks as Threads of one JVM instead of MPI processes, no MPI installation needed (0 uses MPI)
+    public static int threadRanks = 0;
+
+    // * Largest cluster of Cities solved as a Colony of its own, the clusters are chained into one Tour (0 solves the whole instance)
+    // * Only for Coordinate input, every Node then holds the Coordinates and one cluster's Matrices instead of a full Matrix
+    public static int clusterSize = 0;
+
+    // * Stream of instance changes (a file, a named pipe or - for the standard input), every batch of changes is applied
+    // * to the Colony of the last Simulation and solved from its Pheromones and best Tour (null runs Parameters.maxSims from scratch)
+    public static String deltaFile = null;
+
+    // * Pheromone update rule, 0 Ant System (every Ant deposits), 1 MAX-MIN Ant System, 2 Ant Colony System
+    public static int pheromoneUpdate = 0;
+
+    // * MAX-MIN : every this many Iterations the best Tour so far deposits instead of the iteration-best one (0 never)
+    public static int mmasGlobalInterval = 0;
+
+    // * MAX-MIN : Probability of building the best Tour once converged, sets the ratio of tauMin to tauMax
+    public static double mmasPBest = 0.05;
+
+    // * MAX-MIN : Iterations without improvement before the Pheromones are reset to tauMax (0 never)
+    public static int mmasRestart = 250;
+
+    // * ACS : Probability of taking the best Edge outright instead of drawing one
+    public static double acsQ0 = 0.9;
+
+    // * ACS : Weight of the local update pulling every Edge an Ant takes back toward the initial Pheromone
+    public static double acsXi = 0.1;
+}
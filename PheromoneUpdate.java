@@ -0,0 +1,85 @@
+/*
+    * PheromoneUpdate Interface
+    * The rule by which the Colony learns : how the Pheromones start, evaporate and are deposited, and how much the Ants
+    * trust them. AntSystem lets every Ant deposit, MaxMinAntSystem only the best Tour within bounds, AntColonySystem
+    * the best Tour only plus a local update while the Ants build. Parameters.pheromoneUpdate selects one.
+    * The Pheromones are read and written as true values, stored value * Acotsp.pherScale, so every rule
+    * works under lazy Evaporation.
+*/
+public interface PheromoneUpdate {
+    int ANT_SYSTEM = 0;
+    int MAX_MIN = 1;
+    int ANT_COLONY_SYSTEM = 2;
+
+    /*
+        * initial()
+        * @ desc : Pheromone of every Edge at the start of a Simulation
+    */
+    double initial();
+
+    /*
+        * evaporate()
+        * @ desc : Evaporation of the whole Colony, once per Iteration after the Tours are built
+        * @ return : True if every Choice Value needs a refresh before the next Iteration
+    */
+    boolean evaporate();
+
+    /*
+        * deposit()
+        * @ desc : Deposits of the Iteration, after the Evaporation, one Thread only
+        * @ param : The Number of Ants of this Node
+    */
+    void deposit(int nlocal);
+
+    /*
+        * localUpdate()
+        * @ desc : Called by an Ant for every Edge it takes while building its Tour
+    */
+    void localUpdate(int from, int to);
+
+    /*
+        * exploitation()
+        * @ desc : Probability that an Ant takes the best Edge outright instead of drawing one
+    */
+    double exploitation();
+
+    /*
+        * bestTour()
+        * @ desc : Best Tour the rule keeps for its deposits, saved by the Checkpoints with the rest of its state
+        * @ return : The Tour, or null if the rule keeps none or has none yet
+    */
+    default int[] bestTour() {
+        return null;
+    }
+
+    /*
+        * bestDist()
+        * @ desc : Distance of bestTour(), Double.MAX_VALUE while the rule has none
+    */
+    default double bestDist() {
+        return Double.MAX_VALUE;
+    }
+
+    /*
+        * iteration()
+        * @ desc : Number of deposits of the rule in the Simulation
+    */
+    default int iteration() {
+        return 0;
+    }
+
+    /*
+        * lastImprovement()
+        * @ desc : Value of iteration() when the best Tour of the rule last improved
+    */
+    default int lastImprovement() {
+        return 0;
+    }
+
+    /*
+        * restore()
+        * @ desc : Continue from the state of a Checkpoint, after the Pheromones are restored
+        * @ param : The values of bestTour(), bestDist(), iteration() and lastImprovement()
+    */
+    default void restore(int bestTour[], double bestDist, int iteration, int lastImprovement) {}
+}
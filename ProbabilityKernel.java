@@ -0,0 +1,72 @@
+import java.util.Random;
+
+/*
+    * ProbabilityKernel Interface
+    * The running sums of the Choice Values behind the roulette of Ant.edgeSelProb(), over the unvisited Cities of a dense double Row.
+    * SCALAR is always there. The SIMD kernel is only loaded by name when Parameters.vectorKernel asks for it, so the
+    * solver compiles and runs without the incubating Vector API module, VectorKernel.java aside.
+*/
+interface ProbabilityKernel {
+    ProbabilityKernel SCALAR = Ant::prefixSums;    // * The scalar kernel of the Ant
+
+    /*
+        * prefixSums()
+        * @ desc : Gather the Choice Values of the given Cities from a dense Row and write their running sums
+        * @ param : The backing array of the Choice Matrix, the Offset of the Row,
+        *           the unvisited Cities, their count and the array receiving the running sums
+        * @ return : The sum of the Choice Values
+    */
+    double prefixSums(double choice[], int offset, int cities[], int count, double prefix[]);
+
+    /*
+        * vector()
+        * @ desc : Load the SIMD kernel of VectorKernel
+        * @ return : The kernel, or null when the class or the jdk.incubator.vector module is missing
+    */
+    static ProbabilityKernel vector() {
+        try {
+            return (ProbabilityKernel) Class.forName("VectorKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /*
+        * matches()
+        * @ desc : Compare a kernel with SCALAR on random Rows, of random lengths, Offsets and unvisited Cities
+        * The sums may be added in another order, so they must agree within a relative rounding tolerance
+        * @ param : The kernel, the Number of Rows and the seed of the Rows
+        * @ return : The first Row that does not match, or -1 if every running sum matches
+    */
+    static int matches(ProbabilityKernel kernel, int rows, long seed) {
+        Random rand = new Random(seed);
+        for (int r = 0; r < rows; r++) {
+            int n = 1 + rand.nextInt((r % 8 == 7) ? 4096 : 300);
+            int offset = rand.nextInt(n + 1);
+            double row[] = new double[offset + n];
+            double scale = Math.pow(10.0, -rand.nextInt(12));
+            for (int i = offset; i < row.length; i++)
+                row[i] = (rand.nextInt(8) == 0) ? 0.0 : rand.nextDouble() * scale;
+            int cities[] = new int[n];
+            for (int i = 0; i < n; i++)
+                cities[i] = i;
+            for (int i = n - 1; i > 0; i--) {
+                int j = rand.nextInt(i + 1);
+                int c = cities[i]; cities[i] = cities[j]; cities[j] = c;
+            }
+
+            int count = 1 + rand.nextInt(n);
+            double expected[] = new double[n];
+            double actual[] = new double[n];
+            double scalar = SCALAR.prefixSums(row, offset, cities, count, expected);
+            double other = kernel.prefixSums(row, offset, cities, count, actual);
+            double tolerance = 1e-12 * Math.max(Double.MIN_NORMAL, scalar);
+            if (Math.abs(scalar - other) > tolerance)
+                return r;
+            for (int i = 0; i < count; i++)
+                if (Math.abs(expected[i] - actual[i]) > tolerance)
+                    return r;
+        }
+        return -1;
+    }
+}
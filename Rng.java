@@ -0,0 +1,130 @@
+/*
+    * Rng Class
+    * Fast, non-synchronised random number streams. Every Ant owns one stream, derived from the master seed,
+    * the MPI Rank and its index, so a run is reproducible bit for bit whatever the Thread count.
+    * Parameters.rngType selects the generator : 0 xoroshiro128+, 1 SplitMix64
+*/
+public abstract class Rng {
+
+    /*
+        * nextLong()
+        * @ desc : The next 64 random bits
+    */
+    public abstract long nextLong();
+
+    /*
+        * state()
+        * @ desc : The whole internal state as two longs, saved by the Checkpoints
+    */
+    abstract long[] state();
+
+    /*
+        * restore()
+        * @ desc : Continue the stream from a state returned by state()
+    */
+    abstract void restore(long s[]);
+
+    /*
+        * nextDouble()
+        * @ desc : A uniform double in [0, 1), from the top 53 bits
+    */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /*
+        * nextInt()
+        * @ desc : A uniform int in [0, bound), by multiplying the top 32 bits instead of a modulo
+        * @ param : The exclusive upper bound, positive
+    */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /*
+        * create()
+        * @ desc : A new stream of the generator selected by Parameters.rngType
+        * @ param : The seed of the stream
+    */
+    public static Rng create(long seed) {
+        if (Parameters.rngType == 1)
+            return new SplitMix64(seed);
+        return new Xoroshiro128Plus(seed);
+    }
+
+    /*
+        * streamSeed()
+        * @ desc : Seed of an independent stream, mixed from the master seed, the MPI Rank and the stream index
+    */
+    public static long streamSeed(long master, int rank, int index) {
+        long z = mix(master + 0x9E3779B97F4A7C15L * (rank + 1));
+        return mix(z + 0xD1B54A32D192ED03L * (index + 1));
+    }
+
+    /*
+        * mix()
+        * @ desc : SplitMix64 finaliser, spreads close inputs over the whole 64 bit range
+    */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /*
+        * SplitMix64 generator, one long of state
+    */
+    static final class SplitMix64 extends Rng {
+        private long state;
+
+        SplitMix64(long seed) {
+            state = seed;
+        }
+
+        public long nextLong() {
+            state += 0x9E3779B97F4A7C15L;
+            return mix(state);
+        }
+
+        long[] state() {
+            return new long[] { state, 0L };
+        }
+
+        void restore(long s[]) {
+            state = s[0];
+        }
+    }
+
+    /*
+        * xoroshiro128+ generator, two longs of state seeded through SplitMix64
+    */
+    static final class Xoroshiro128Plus extends Rng {
+        private long s0;
+        private long s1;
+
+        Xoroshiro128Plus(long seed) {
+            SplitMix64 init = new SplitMix64(seed);
+            s0 = init.nextLong();
+            s1 = init.nextLong();
+        }
+
+        public long nextLong() {
+            long a = s0;
+            long b = s1;
+            long result = a + b;
+            b ^= a;
+            s0 = Long.rotateLeft(a, 24) ^ b ^ (b << 16);
+            s1 = Long.rotateLeft(b, 37);
+            return result;
+        }
+
+        long[] state() {
+            return new long[] { s0, s1 };
+        }
+
+        void restore(long s[]) {
+            s0 = s[0];
+            s1 = s[1];
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+    * Termination Class
+    * Early stop of a Simulation on a target Distance, on stagnation or on a low branching factor of the Pheromones,
+    * and of the whole run on a wall clock budget.
+    * Every Node checks its own state and one small MAX Allreduce makes all the Nodes take the same decision,
+    * so they always leave the Iteration loop together and stay matched for the next collectives.
+*/
+public final class Termination {
+    static final int CONTINUE = 0;      // * Keep iterating
+    static final int STOP_SIMULATION = 1;// * Stop the current Simulation, the next one starts
+    static final int STOP_RUN = 2;      // * Stop the current Simulation and skip the remaining ones
+
+    private static final double LAMBDA = 0.05;  // * Share of the Pheromone range an Edge must reach to count as a branch
+
+    private static long runStart;       // * Start of the run in ns, for the time budget
+    private static int lastImprovement; // * Iteration of the last improvement of the best Tour of this Node
+    static String reason;               // * Why the last Simulation stopped early, null if it ran all its Iterations
+
+    private Termination() {}
+
+    /*
+        * active()
+        * @ desc : Check if any termination criterion is enabled, otherwise the runs never check
+    */
+    static boolean active() {
+        return Parameters.timeBudget > 0 || Parameters.stopAtTarget || Parameters.stagnationIters > 0
+                || branchingActive();
+    }
+
+    /*
+        * branchingActive()
+        * @ desc : Check if the branching factor criterion applies
+        * Ant Colony System never lets a Pheromone fall below tau0, so only its best Tour rises above the rest and
+        * the factor is about 1 from the first Iteration on, whatever the Ants still explore
+    */
+    private static boolean branchingActive() {
+        return Parameters.branchingFactor > 0 && Parameters.pheromoneUpdate != PheromoneUpdate.ANT_COLONY_SYSTEM;
+    }
+
+    /*
+        * settling()
+        * @ desc : Iterations without improvement before a low branching factor counts, 1 / (1 - rho), the time the
+        * Evaporation takes to wear the Pheromones down by a factor e
+        * Right after a deposit by a few Ants only their Edges stand out, so the factor is low long before the Colony
+        * converged, while a converged Colony keeps building the same Tour and no longer improves
+    */
+    private static int settling() {
+        return (int) Math.ceil(1.0 / Math.max(1.0 - Parameters.rho, 1e-9));
+    }
+
+    /*
+        * startRun()
+        * @ desc : Start the clock of the time budget
+    */
+    static void startRun() {
+        runStart = System.nanoTime();
+    }
+
+    /*
+        * startSimulation()
+        * @ desc : Reset the stagnation state for a new Simulation
+    */
+    static void startSimulation() {
+        lastImprovement = 0;
+        reason = null;
+    }
+
+    /*
+        * improved()
+        * @ desc : Record that the best Tour of this Node improved in an Iteration
+    */
+    static void improved(int iter) {
+        lastImprovement = iter;
+    }
+
+    /*
+        * lastImprovement()
+        * @ desc : Iteration of the last improvement, saved by the Checkpoints
+    */
+    static int lastImprovement() {
+        return lastImprovement;
+    }
+
+    /*
+        * check()
+        * @ desc : Decide with all the Nodes whether to go on, every Parameters.terminationInterval Iterations
+        * The time budget and the target stop everyone as soon as one Node meets them, stagnation needs every Node
+        * @ param : The Iteration just finished and the best Distance of this Node so far
+        * @ return : CONTINUE, STOP_SIMULATION or STOP_RUN
+    */
+    static int check(int iter, double best) {
+        if ((iter + 1) % Parameters.terminationInterval != 0)
+            return CONTINUE;
+
+        // * One flag per criterion, the stagnation flag is inverted so that MAX tells if some Node still progresses
+        int local[] = new int[4];
+        local[0] = (Parameters.timeBudget > 0 && (System.nanoTime() - runStart) / 1000000L >= Parameters.timeBudget) ? 1 : 0;
+        local[1] = (Parameters.stopAtTarget && best <= Parameters.targetDist) ? 1 : 0;
+        local[2] = (Parameters.stagnationIters > 0 && iter - lastImprovement >= Parameters.stagnationIters) ? 0 : 1;
+        local[3] = (branchingActive() && iter - lastImprovement >= settling()
+                    && branchingFactor() < Parameters.branchingFactor) ? 0 : 1;
+        int global[] = new int[4];
+        Acotsp.comm.allreduce(local, 0, global, 0, 4, Comm.MAX);
+
+        if (global[0] == 1) {
+            reason = "time budget of " + Parameters.timeBudget + " ms spent";
+            return STOP_RUN;
+        }
+        if (global[1] == 1)
+            reason = "target distance " + Parameters.targetDist + " reached";
+        else if (global[2] == 0)
+            reason = "no improvement in " + Parameters.stagnationIters + " iterations";
+        else if (global[3] == 0)
+            reason = "branching factor below " + Parameters.branchingFactor;
+        return (reason != null) ? STOP_SIMULATION : CONTINUE;
+    }
+
+    /*
+        * branchingFactor()
+        * @ desc : Average lambda-branching factor of the Pheromones of this Node, over the Candidate Lists
+        * An Edge of a City is a branch if its Pheromone reaches min + LAMBDA * (max - min) of the City,
+        * the count is halved per City so a converged Colony, keeping only its two Tour Edges per City, gives 1
+        * A deposit only writes the from -> to entry of an unpacked Matrix, so an Edge counts with the larger of its
+        * two directions, on every storage layout its Pheromone is then the same seen from either end
+        * The global lazy Evaporation factor is common to all the Edges and cancels out
+    */
+    static double branchingFactor() {
+        long branches = 0;
+        for (int i = 0; i < Acotsp.ncities; i++) {
+            int candidates[] = Acotsp.cities[i].candidates;
+            int count = (candidates.length > 0) ? candidates.length : Acotsp.ncities;
+            double min = Double.MAX_VALUE;
+            double max = 0.0;
+            for (int k = 0; k < count; k++) {
+                int j = (candidates.length > 0) ? candidates[k] : k;
+                if (j == i)
+                    continue;
+                double tau = pheromone(i, j);
+                min = Math.min(min, tau);
+                max = Math.max(max, tau);
+            }
+            double cutoff = min + LAMBDA * (max - min);
+            for (int k = 0; k < count; k++) {
+                int j = (candidates.length > 0) ? candidates[k] : k;
+                if (j != i && pheromone(i, j) >= cutoff)
+                    branches++;
+            }
+        }
+        return branches / (2.0 * Acotsp.ncities);
+    }
+
+    /*
+        * pheromone()
+        * @ desc : Stored Pheromone of an Edge in either direction, the larger one where the Matrix keeps both
+    */
+    private static double pheromone(int i, int j) {
+        Matrix pheromones = Acotsp.PHEROMONES;
+        double tau = pheromones.get(i, j);
+        return pheromones.packed ? tau : Math.max(tau, pheromones.get(j, i));
+    }
+}
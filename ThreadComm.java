@@ -0,0 +1,337 @@
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+/*
+    * ThreadComm Class
+    * Comm backend running every rank as a Thread of one JVM, without any MPI installation.
+    * Every rank loads the program classes through its own class loader, so each has its own copy of the static state
+    * of the Driver, exactly like separate processes, while this class and Comm are shared by all of them.
+    * A collective publishes the buffers of every rank, waits for all of them and reads the other ranks' arrays
+    * directly: no message is serialised, a broadcast is one array copy and share() hands out the root's array itself.
+    * The ranks reach this class through another class loader, so what they call must be public.
+*/
+public class ThreadComm implements Comm {
+    private static final ThreadLocal<ThreadComm> CURRENT = new ThreadLocal<>();
+
+    private final Group group;          // * State shared by all the ranks
+    private final int rank;
+
+    /*
+        * Group Class
+        * The buffers published by every rank for the collective in progress
+    */
+    private static final class Group {
+        final int size;
+        final CyclicBarrier barrier;
+        final Object sends[];
+        final int sendOffsets[];
+        final Object recvs[];
+        final int recvOffsets[];
+        final List<LinkedList<Message>> mail;   // * Messages sent to every rank and not received yet, in sending order
+        volatile boolean failed;            // * Set when a rank failed, for the ranks waiting in recv()
+
+        Group(int n) {
+            size = n;
+            barrier = new CyclicBarrier(n);
+            sends = new Object[n];
+            sendOffsets = new int[n];
+            recvs = new Object[n];
+            recvOffsets = new int[n];
+            mail = new ArrayList<>(n);
+            for (int r = 0; r < n; r++)
+                mail.add(new LinkedList<>());
+        }
+    }
+
+    /*
+        * Message Class
+        * A copy of the elements sent by send(), waiting in the mailbox of its destination
+    */
+    private static final class Message {
+        final int source;
+        final int tag;
+        final Object data;
+
+        Message(int s, int t, Object d) {
+            source = s;
+            tag = t;
+            data = d;
+        }
+    }
+
+    private ThreadComm(Group g, int r) {
+        group = g;
+        rank = r;
+    }
+
+    /*
+        * current()
+        * @ desc : The communicator of the rank running on this Thread, null outside of launch()
+    */
+    public static ThreadComm current() {
+        return CURRENT.get();
+    }
+
+    /*
+        * launch()
+        * @ desc : Run main() of a class as nranks ranks, one Thread and one class loader each, and wait for all of them
+        * A rank failing breaks the barrier, so the other ranks fail at their next collective instead of hanging
+        * @ param : The Number of ranks, the main class and the Arguments of the program
+    */
+    public static void launch(int nranks, String mainClass, String args[]) throws InterruptedException {
+        Group group = new Group(nranks);
+        URL classpath[] = classpath();
+        Thread threads[] = new Thread[nranks];
+        for (int r = 0; r < nranks; r++) {
+            ThreadComm comm = new ThreadComm(group, r);
+            ClassLoader loader = new RankLoader(classpath, ThreadComm.class.getClassLoader());
+            threads[r] = new Thread(() -> {
+                CURRENT.set(comm);
+                try {
+                    Method main = loader.loadClass(mainClass).getMethod("main", String[].class);
+                    main.invoke(null, (Object) args);
+                } catch (InvocationTargetException e) {
+                    if (!(e.getCause() instanceof IllegalStateException && e.getCause().getCause() instanceof BrokenBarrierException))
+                        e.getCause().printStackTrace();
+                    group.failed = true;
+                    group.barrier.reset();
+                } catch (ReflectiveOperationException e) {
+                    e.printStackTrace();
+                    group.failed = true;
+                    group.barrier.reset();
+                }
+            }, "rank-" + r);
+            threads[r].start();
+        }
+        for (Thread t : threads)
+            t.join();
+    }
+
+    private static URL[] classpath() {
+        String entries[] = System.getProperty("java.class.path").split(File.pathSeparator);
+        URL urls[] = new URL[entries.length];
+        try {
+            for (int i = 0; i < entries.length; i++)
+                urls[i] = new File(entries[i]).toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+        return urls;
+    }
+
+    /*
+        * RankLoader Class
+        * Loads the program classes itself instead of asking its parent first, except for the shared communicator classes
+    */
+    private static final class RankLoader extends URLClassLoader {
+        RankLoader(URL urls[], ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    if (name.equals("Comm") || name.startsWith("ThreadComm") || name.startsWith("java.") || name.startsWith("jdk."))
+                        return super.loadClass(name, resolve);
+                    try {
+                        c = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        return super.loadClass(name, resolve);
+                    }
+                }
+                if (resolve)
+                    resolveClass(c);
+                return c;
+            }
+        }
+    }
+
+    public int rank() {
+        return rank;
+    }
+
+    public int size() {
+        return group.size;
+    }
+
+    /*
+        * await()
+        * @ desc : Wait for all the ranks at the barrier
+    */
+    private void await() {
+        try {
+            group.barrier.await();
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException("Rank " + rank + " : another rank failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rank " + rank + " interrupted", e);
+        }
+    }
+
+    /*
+        * publish()
+        * @ desc : Publish the buffers of this rank and wait until every rank published its own
+    */
+    private void publish(Object sendbuf, int sendoffset, Object recvbuf, int recvoffset) {
+        group.sends[rank] = sendbuf;
+        group.sendOffsets[rank] = sendoffset;
+        group.recvs[rank] = recvbuf;
+        group.recvOffsets[rank] = recvoffset;
+        await();
+    }
+
+    public void bcast(Object buf, int offset, int count, int root) {
+        publish(buf, offset, null, 0);
+        if (rank != root)
+            System.arraycopy(group.sends[root], group.sendOffsets[root], buf, offset, count);
+        await();                        // * The buffers are published until every rank is done with them
+    }
+
+    public Object share(Object buf, int root) {
+        publish(buf, 0, null, 0);
+        Object shared = group.sends[root];
+        await();
+        return shared;
+    }
+
+    public void reduce(Object sendbuf, int sendoffset, Object recvbuf, int recvoffset, int count, int op, int root) {
+        publish(sendbuf, sendoffset, recvbuf, recvoffset);
+        // * Every rank combines its own slice of the elements straight into the buffer of the root
+        int lo = (int) ((long) count * rank / group.size);
+        int hi = (int) ((long) count * (rank + 1) / group.size);
+        combine(group.recvs[root], group.recvOffsets[root], lo, hi, op);
+        await();
+    }
+
+    public void allreduce(Object sendbuf, int sendoffset, Object recvbuf, int recvoffset, int count, int op) {
+        publish(sendbuf, sendoffset, recvbuf, recvoffset);
+        // * Every rank combines its own slice once and copies it to the other ranks
+        int lo = (int) ((long) count * rank / group.size);
+        int hi = (int) ((long) count * (rank + 1) / group.size);
+        combine(recvbuf, recvoffset, lo, hi, op);
+        for (int p = 0; p < group.size; p++)
+            if (p != rank)
+                System.arraycopy(recvbuf, recvoffset + lo, group.recvs[p], group.recvOffsets[p] + lo, hi - lo);
+        await();
+    }
+
+    public void allreduceMinloc(double sendbuf[], int sendoffset, double recvbuf[], int recvoffset, int count) {
+        publish(sendbuf, sendoffset, recvbuf, recvoffset);
+        for (int i = 0; i < count; i++) {
+            double value = Double.MAX_VALUE;
+            double index = Double.MAX_VALUE;
+            for (int p = 0; p < group.size; p++) {
+                double pair[] = (double[]) group.sends[p];
+                int k = group.sendOffsets[p] + 2 * i;
+                if (pair[k] < value || (pair[k] == value && pair[k + 1] < index)) {
+                    value = pair[k];
+                    index = pair[k + 1];
+                }
+            }
+            recvbuf[recvoffset + 2 * i] = value;
+            recvbuf[recvoffset + 2 * i + 1] = index;
+        }
+        await();
+    }
+
+    public void allgather(Object sendbuf, int sendoffset, int count, Object recvbuf, int recvoffset) {
+        publish(sendbuf, sendoffset, recvbuf, recvoffset);
+        for (int p = 0; p < group.size; p++)
+            System.arraycopy(group.sends[p], group.sendOffsets[p], recvbuf, recvoffset + p * count, count);
+        await();
+    }
+
+    public void sendrecv(Object sendbuf, int sendoffset, int count, int dest,
+                         Object recvbuf, int recvoffset, int source, int tag) {
+        publish(sendbuf, sendoffset, recvbuf, recvoffset);
+        System.arraycopy(group.sends[source], group.sendOffsets[source], recvbuf, recvoffset, count);
+        await();
+    }
+
+    public void send(Object buf, int offset, int count, int dest, int tag) {
+        Object data = java.lang.reflect.Array.newInstance(buf.getClass().getComponentType(), count);
+        System.arraycopy(buf, offset, data, 0, count);
+        LinkedList<Message> box = group.mail.get(dest);
+        synchronized (box) {
+            box.add(new Message(rank, tag, data));
+            box.notifyAll();
+        }
+    }
+
+    public int recv(Object buf, int offset, int count, int source, int tag) {
+        LinkedList<Message> box = group.mail.get(rank);
+        synchronized (box) {
+            while (true) {
+                for (Iterator<Message> it = box.iterator(); it.hasNext(); ) {
+                    Message m = it.next();
+                    if (m.tag == tag && (source == ANY_SOURCE || m.source == source)) {
+                        it.remove();
+                        System.arraycopy(m.data, 0, buf, offset, count);
+                        return m.source;
+                    }
+                }
+                // * Waking up now and then to notice a failed rank
+                if (group.failed)
+                    throw new IllegalStateException("Rank " + rank + " : another rank failed", new BrokenBarrierException());
+                try {
+                    box.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Rank " + rank + " interrupted", e);
+                }
+            }
+        }
+    }
+
+    public void barrier() {
+        await();
+    }
+
+    public void finish() {
+        barrier();
+    }
+
+    /*
+        * combine()
+        * @ desc : Reduce the elements lo to hi - 1 of the published send buffers of all the ranks into a buffer
+        * The ranks are combined in rank order, so every rank gets the same rounding
+    */
+    private void combine(Object target, int toff, int lo, int hi, int op) {
+        Object sends[] = group.sends;
+        int soffs[] = group.sendOffsets;
+        System.arraycopy(sends[0], soffs[0] + lo, target, toff + lo, hi - lo);
+        for (int p = 1; p < group.size; p++) {
+            int d = soffs[p] - toff;
+            if (target instanceof double[]) {
+                double t[] = (double[]) target, s[] = (double[]) sends[p];
+                for (int i = toff + lo; i < toff + hi; i++)
+                    t[i] = (op == SUM) ? t[i] + s[i + d] : (op == MIN) ? Math.min(t[i], s[i + d]) : Math.max(t[i], s[i + d]);
+            } else if (target instanceof float[]) {
+                float t[] = (float[]) target, s[] = (float[]) sends[p];
+                for (int i = toff + lo; i < toff + hi; i++)
+                    t[i] = (op == SUM) ? t[i] + s[i + d] : (op == MIN) ? Math.min(t[i], s[i + d]) : Math.max(t[i], s[i + d]);
+            } else if (target instanceof long[]) {
+                long t[] = (long[]) target, s[] = (long[]) sends[p];
+                for (int i = toff + lo; i < toff + hi; i++)
+                    t[i] = (op == SUM) ? t[i] + s[i + d] : (op == MIN) ? Math.min(t[i], s[i + d]) : Math.max(t[i], s[i + d]);
+            } else if (target instanceof int[]) {
+                int t[] = (int[]) target, s[] = (int[]) sends[p];
+                for (int i = toff + lo; i < toff + hi; i++)
+                    t[i] = (op == SUM) ? t[i] + s[i + d] : (op == MIN) ? Math.min(t[i], s[i + d]) : Math.max(t[i], s[i + d]);
+            } else
+                throw new IllegalArgumentException("Unsupported buffer " + target.getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+    * VectorKernel Class
+    * SIMD version of the Probability kernel of Ant.edgeSelProb() using the JDK Vector API (incubator module).
+    * It needs --add-modules jdk.incubator.vector at compile and run time. The Driver loads it by name and falls back to
+    * the scalar kernel when the class or the module is missing or the check against the scalar kernel fails.
+*/
+final class VectorKernel implements ProbabilityKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    VectorKernel() {}
+
+    /*
+        * prefixSums()
+        * @ desc : Gather the Choice Values of the unvisited Cities from a dense Row and write their running sums
+        * Each vector is scanned in registers (log2 lanes shifted adds) and offset by the running total
+        * @ param : The backing array of the Choice Matrix, the Offset of the Row,
+        *           the unvisited Cities, their count and the array receiving the running sums
+        * @ return : The sum of the Choice Values
+    */
+    public double prefixSums(double choice[], int offset, int cities[], int count, double prefix[]) {
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+        double total = 0.0;
+        int i = 0;
+        for (; i <= count - LANES; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, choice, offset, cities, i);
+            for (int shift = 1; shift < LANES; shift <<= 1)
+                v = v.add(zero.slice(LANES - shift, v));    // * Adding the vector moved up by shift lanes
+            v.add(total).intoArray(prefix, i);
+            total = prefix[i + LANES - 1];
+        }
+        for (; i < count; i++) {
+            total += choice[offset + cities[i]];
+            prefix[i] = total;
+        }
+        return total;
+    }
+
+    /*
+        * main()
+        * @ desc : Standalone check of the SIMD kernel against the scalar one, to run after changing either kernel
+        * java --add-modules jdk.incubator.vector VectorKernel [#Rows] [seed], exits with 1 on the first Row that differs
+    */
+    public static void main(String[] args) {
+        int rows = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+        long seed = (args.length > 1) ? Long.parseLong(args[1]) : 1L;
+        int row = ProbabilityKernel.matches(new VectorKernel(), rows, seed);
+        if (row >= 0) {
+            System.out.println("SIMD kernel differs from the scalar kernel on Row " + row + " (seed " + seed + ")");
+            System.exit(1);
+        }
+        System.out.println(rows + " Rows match, " + LANES + " lanes");
+    }
+}
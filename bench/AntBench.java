@@ -0,0 +1,92 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/*
+    * AntBench Class
+    * Tour construction and the Probability kernels of the Ant.
+    * constructTour() runs ncities calls of moveAnt()/selectNextCity(), so its score divided by ncities is the cost of one step.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AntBench {
+
+    /*
+        * Row State
+        * One dense Choice Row and a shuffled half of the Cities left unvisited, the input of Ant.edgeSelProb()
+    */
+    @State(Scope.Thread)
+    public static class Row {
+        @Param({"100", "1000", "5000", "20000"})
+        public int ncities;
+
+        double choice[];
+        int unvisited[];
+        int remaining;
+        double prefix[];
+
+        @Setup(Level.Trial)
+        public void setup() {
+            Random rand = new Random(42);
+            choice = new double[ncities];
+            unvisited = new int[ncities];
+            prefix = new double[ncities];
+            for (int i = 0; i < ncities; i++) {
+                choice[i] = rand.nextDouble() * 1e-6;
+                unvisited[i] = i;
+            }
+            for (int i = ncities - 1; i > 0; i--) {
+                int j = rand.nextInt(i + 1);
+                int c = unvisited[i]; unvisited[i] = unvisited[j]; unvisited[j] = c;
+            }
+            remaining = ncities / 2;
+        }
+    }
+
+    /*
+        * Simd State
+        * The SIMD kernel, only loaded by the benchmark that runs with the Vector API module
+    */
+    @State(Scope.Thread)
+    public static class Simd {
+        ProbabilityKernel kernel;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            kernel = new VectorKernel();
+        }
+    }
+
+    /*
+        * constructTour()
+        * @ desc : One whole Tour of an Ant over the Colony
+    */
+    @Benchmark
+    public double constructTour(Colony colony) {
+        Ant ant = colony.ant();
+        ant.constructTour();
+        return ant.tripDist;
+    }
+
+    /*
+        * edgeSelProbScalar()
+        * @ desc : Running sums of the Choice Values over the unvisited Cities, scalar kernel
+    */
+    @Benchmark
+    public double edgeSelProbScalar(Row row) {
+        return Ant.prefixSums(row.choice, 0, row.unvisited, row.remaining, row.prefix);
+    }
+
+    /*
+        * edgeSelProbVector()
+        * @ desc : Same running sums with the SIMD kernel of Parameters.vectorKernel
+    */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public double edgeSelProbVector(Row row, Simd simd) {
+        return simd.kernel.prefixSums(row.choice, 0, row.unvisited, row.remaining, row.prefix);
+    }
+}
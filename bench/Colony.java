@@ -0,0 +1,32 @@
+import org.openjdk.jmh.annotations.*;
+
+/*
+    * Colony State
+    * A generated instance loaded into the Driver Class with its Cities and Ants, shared by the benchmark Threads.
+    * The Driver keeps its state in static fields, so the benchmarks run single threaded, one fork per setting.
+*/
+@State(Scope.Benchmark)
+public class Colony {
+    @Param({"100", "1000", "5000", "20000"})
+    public int ncities;             // * # of Cities, beyond Instances.DENSE_LIMIT the Matrices are sparse
+
+    @Param({"20"})
+    public int ncandidates;         // * Candidate List length, 0 makes every step scan all the unvisited Cities
+
+    @Param({"42"})
+    public long seed;               // * Seed of the Cities and of the Ant streams
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Parameters.ncandidates = ncandidates;
+        Instances.load(ncities, seed);
+    }
+
+    /*
+        * ant()
+        * @ desc : The first Ant of the Colony
+    */
+    public Ant ant() {
+        return Acotsp.ants[0];
+    }
+}
@@ -0,0 +1,102 @@
+import java.io.*;
+import java.util.Random;
+
+/*
+    * Instances Class
+    * Random Euclidean instances for the benchmarks, the same size and seed always give the same Cities,
+    * so two builds are measured on identical inputs.
+*/
+final class Instances {
+    static final int DENSE_LIMIT = 5000;    // * Larger instances use Coordinates and sparse Matrices, as a real run would
+    static final double SIDE = 1000000.0;   // * Side of the square holding the Cities
+
+    private Instances() {}
+
+    /*
+        * cities()
+        * @ desc : Integer Coordinates drawn uniformly over the square
+        * @ param : The Number of Cities and the seed
+    */
+    static Coordinates cities(int n, long seed) {
+        Coordinates coords = new Coordinates(n, Coordinates.EUC_2D);
+        Random rand = new Random(seed);
+        for (int i = 0; i < n; i++) {
+            coords.x[i] = Math.floor(rand.nextDouble() * SIDE);
+            coords.y[i] = Math.floor(rand.nextDouble() * SIDE);
+        }
+        return coords;
+    }
+
+    /*
+        * load()
+        * @ desc : Set up the Driver Class as main() does after reading the Input File, without MPI
+        * Up to DENSE_LIMIT Cities the Distances go into a Distance Matrix, beyond it they come from the Coordinates
+        * @ param : The Number of Cities and the seed of the Cities and of the Ants
+    */
+    static void load(int n, long seed) {
+        Coordinates coords = cities(n, seed);
+        Acotsp.ncities = n;
+        Acotsp.seed = seed;
+        if (n > DENSE_LIMIT) {
+            if (Parameters.ncandidates <= 0)
+                throw new IllegalArgumentException("Coordinate input needs Candidate Lists, set ncandidates > 0");
+            Acotsp.COORDS = coords;
+            Acotsp.GRAPH = null;
+        }
+        else {
+            Acotsp.COORDS = null;
+            Acotsp.GRAPH = new Matrix(n, Parameters.singlePrecision, Parameters.packedGraph);
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < i; j++) {
+                    double d = Math.max(1.0, coords.distance(i, j));  // * Coinciding Cities would read as a missing Edge
+                    Acotsp.GRAPH.set(i, j, d);
+                    Acotsp.GRAPH.set(j, i, d);
+                }
+        }
+
+        Acotsp.buildCandidateLists();
+        Acotsp.buildHeuristics();
+        Acotsp.PHEROMONES = Acotsp.newMatrix();
+        Acotsp.CHOICE = Acotsp.newMatrix();
+        Acotsp.ants = null;         // * New Ants, sized for the current Parameters
+        Acotsp.init();
+    }
+
+    /*
+        * write()
+        * @ desc : Write the instance as an Input File of the same kind load() builds,
+        * an adjacency list up to DENSE_LIMIT Cities and a TSPLIB file beyond it
+        * @ param : The Number of Cities, the seed and the Directory of the file
+        * @ return : The Path of the file
+    */
+    static String write(int n, long seed, File dir) throws IOException {
+        Coordinates coords = cities(n, seed);
+        boolean tsplib = n > DENSE_LIMIT;
+        File file = new File(dir, "bench-" + n + "-" + seed + (tsplib ? ".tsp" : ".txt"));
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), 1 << 20))) {
+            if (tsplib) {
+                out.println("NAME : bench" + n);
+                out.println("TYPE : TSP");
+                out.println("DIMENSION : " + n);
+                out.println("EDGE_WEIGHT_TYPE : EUC_2D");
+                out.println("NODE_COORD_SECTION");
+                for (int i = 0; i < n; i++)
+                    out.println((i + 1) + " " + (long) coords.x[i] + " " + (long) coords.y[i]);
+                out.println("EOF");
+            }
+            else {
+                // * "x=v:d,v:d,..." lines, readFile() sets both directions so every Edge is written once
+                for (int i = 0; i < n - 1; i++) {
+                    out.print((i + 1) + "=");
+                    for (int j = i + 1; j < n; j++) {
+                        if (j > i + 1)
+                            out.print(',');
+                        out.print((j + 1) + ":" + (long) Math.max(1.0, coords.distance(i, j)));
+                    }
+                    out.println();
+                }
+            }
+        }
+        return file.getPath();
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/*
+    * PheromoneBench Class
+    * Evaporation and deposit of the Pheromones, the per Iteration updates of the Matrices
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PheromoneBench {
+    @Param({"true", "false"})
+    public boolean lazyEvaporation;
+
+    private boolean up;             // * Direction of the next eager pass
+
+    @Setup(Level.Trial)
+    public void setup(Colony colony) {
+        Parameters.lazyEvaporation = lazyEvaporation;
+        Acotsp.init();              // * Fresh Pheromones under the selected Evaporation
+        colony.ant().constructTour();
+    }
+
+    /*
+        * evaporatePhermones()
+        * @ desc : Eager Evaporation of every City Row
+        * Every other pass scales back up by 1/rho, the same loop, so the values never drift into subnormals
+    */
+    @Benchmark
+    public void evaporatePhermones() {
+        if (up = !up)
+            scaleUp();
+        else
+            for (City city : Acotsp.cities)
+                city.evaporatePhermones();
+    }
+
+    /*
+        * evaporate()
+        * @ desc : Evaporation step of an Iteration as selected by Parameters.lazyEvaporation
+        * The eager step is undone every other pass like above, the lazy one folds its factor back by itself
+    */
+    @Benchmark
+    public boolean evaporate() {
+        if (!lazyEvaporation && (up = !up)) {
+            scaleUp();
+            return true;
+        }
+        return Acotsp.evaporate();
+    }
+
+    private void scaleUp() {
+        for (City city : Acotsp.cities)
+            city.scalePheromones(1.0 / Parameters.rho);
+    }
+
+    /*
+        * updatePherTrails()
+        * @ desc : Deposit of one Tour, refreshing the Choice Values of its Edges under lazy Evaporation
+    */
+    @Benchmark
+    public void updatePherTrails(Colony colony) {
+        colony.ant().updatePherTrails();
+    }
+}
@@ -0,0 +1,48 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/*
+    * PowBench Class
+    * The approximate Ant.pow() against Math.pow() over a batch of Pheromone like bases, with the exponents of Parameters
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PowBench {
+    private static final int BATCH = 1024;
+
+    @Param({"1.0", "2.0", "2.5"})
+    public double exponent;         // * alpha or beta, the integer ones are the common settings
+
+    private double bases[];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rand = new Random(42);
+        bases = new double[BATCH];
+        for (int i = 0; i < BATCH; i++)
+            bases[i] = 1e-3 + rand.nextDouble() * 10.0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double antPow() {
+        double sum = 0.0;
+        for (int i = 0; i < BATCH; i++)
+            sum += Ant.pow(bases[i], exponent);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double mathPow() {
+        double sum = 0.0;
+        for (int i = 0; i < BATCH; i++)
+            sum += Math.pow(bases[i], exponent);
+        return sum;
+    }
+}
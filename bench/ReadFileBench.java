@@ -0,0 +1,65 @@
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/*
+    * ReadFileBench Class
+    * Parsing of a generated Input File, an adjacency list up to Instances.DENSE_LIMIT Cities and a TSPLIB file beyond it
+*/
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadFileBench {
+    @Param({"100", "1000", "5000", "20000"})
+    public int ncities;
+
+    @Param({"42"})
+    public long seed;
+
+    @Param({"false", "true"})
+    public boolean graphCache;      // * Load the Binary Cache written by the first read instead of parsing
+
+    private String file;
+    private Acotsp driver;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+        file = Instances.write(ncities, seed, dir);
+        new File(GraphCache.cacheFile(file)).delete();
+        Parameters.graphCache = graphCache;
+        Acotsp.ncities = ncities;
+        driver = new Acotsp();
+        allocate();
+    }
+
+    /*
+        * allocate()
+        * @ desc : Fresh Matrix or Coordinates to read into, as main() allocates them
+    */
+    @Setup(Level.Iteration)
+    public void allocate() {
+        if (Acotsp.isTsplib(file)) {
+            Acotsp.COORDS = new Coordinates(ncities, Coordinates.EUC_2D);
+            Acotsp.GRAPH = null;
+        }
+        else {
+            Acotsp.COORDS = null;
+            Acotsp.GRAPH = new Matrix(ncities, Parameters.singlePrecision, Parameters.packedGraph);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() {
+        new File(GraphCache.cacheFile(file)).delete();
+        new File(file).delete();
+    }
+
+    @Benchmark
+    public void readFile() throws IOException {
+        driver.readFile(file);
+    }
+}